@@ -0,0 +1,254 @@
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+
+import javax.swing.JPanel;
+import java.awt.Component;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// --- FAKE MONTOYA ---
+// In-process stand-in for the parts of Burp the extension touches. Everything is a
+// dynamic proxy: methods with an override answer from it, anything else returns a
+// neutral default (0, false, "", empty collection, or another stub).
+class FakeMontoya {
+
+    final PersistenceStore persistence = new PersistenceStore();
+    final AtomicLong logLines = new AtomicLong();
+    final AtomicLong errorLines = new AtomicLong();
+    volatile HttpHandler handler;
+
+    private final Predicate<String> inScope;
+
+    FakeMontoya(Predicate<String> inScope) {
+        this.inScope = inScope;
+    }
+
+    /** Routes the static Montoya factories (ByteArray.byteArray, HttpRequestResponse...) to the fakes. */
+    static void installObjectFactory() {
+        Map<String, Function<Object[], Object>> factory = new HashMap<>();
+        factory.put("byteArray", args -> {
+            Object value = args[0];
+            if (value instanceof byte[]) return FakeMontoya.byteArray((byte[]) value);
+            if (value instanceof String) return FakeMontoya.byteArray(((String) value).getBytes(StandardCharsets.ISO_8859_1));
+            int[] ints = (int[]) value;
+            byte[] bytes = new byte[ints.length];
+            for (int i = 0; i < ints.length; i++) bytes[i] = (byte) ints[i];
+            return FakeMontoya.byteArray(bytes);
+        });
+        factory.put("httpService", args -> {
+            String host = (String) args[0];
+            boolean secure = args.length == 1 || (boolean) args[args.length - 1];
+            int port = args.length == 3 ? (int) args[1] : (secure ? 443 : 80);
+            return FakeMontoya.httpService(host, port, secure);
+        });
+        factory.put("httpRequestResponse", args -> FakeMontoya.requestResponse((HttpRequest) args[0], (HttpResponse) args[1]));
+        ObjectFactoryLocator.FACTORY = stub(MontoyaObjectFactory.class, factory);
+    }
+
+    MontoyaApi api() {
+        Map<String, Function<Object[], Object>> http = new HashMap<>();
+        http.put("registerHttpHandler", args -> {
+            handler = (HttpHandler) args[0];
+            return null; // Registration stub comes from the default
+        });
+
+        Map<String, Function<Object[], Object>> scope = new HashMap<>();
+        scope.put("isInScope", args -> inScope.test((String) args[0]));
+
+        Map<String, Function<Object[], Object>> logging = new HashMap<>();
+        logging.put("logToOutput", args -> {
+            logLines.incrementAndGet();
+            return null;
+        });
+        logging.put("logToError", args -> {
+            errorLines.incrementAndGet();
+            System.err.println("[extension] " + args[0]);
+            return null;
+        });
+
+        Map<String, Function<Object[], Object>> persistence = new HashMap<>();
+        persistence.put("extensionData", args -> this.persistence.stub);
+
+        Map<String, Object> services = new HashMap<>();
+        services.put("http", stub(burp.api.montoya.http.Http.class, http));
+        services.put("scope", stub(burp.api.montoya.scope.Scope.class, scope));
+        services.put("logging", stub(burp.api.montoya.logging.Logging.class, logging));
+        services.put("persistence", stub(burp.api.montoya.persistence.Persistence.class, persistence));
+
+        Map<String, Function<Object[], Object>> api = new HashMap<>();
+        for (Map.Entry<String, Object> service : services.entrySet()) {
+            Object value = service.getValue();
+            api.put(service.getKey(), args -> value);
+        }
+        return stub(MontoyaApi.class, api);
+    }
+
+    // --- PERSISTENCE ---
+    // Backed by a map; counts writes and bytes so the harness can report save cost.
+    static class PersistenceStore {
+        final Map<String, String> strings = new ConcurrentHashMap<>();
+        final Map<String, AtomicLong> writesByKey = new ConcurrentHashMap<>();
+        final AtomicLong writes = new AtomicLong();
+        final AtomicLong bytesWritten = new AtomicLong();
+        final Object stub;
+
+        PersistenceStore() {
+            Map<String, Function<Object[], Object>> methods = new HashMap<>();
+            methods.put("getString", args -> strings.get((String) args[0]));
+            methods.put("setString", args -> {
+                strings.put((String) args[0], (String) args[1]);
+                writes.incrementAndGet();
+                writesByKey.computeIfAbsent((String) args[0], k -> new AtomicLong()).incrementAndGet();
+                bytesWritten.addAndGet(((String) args[1]).length());
+                return null;
+            });
+            methods.put("deleteString", args -> strings.remove((String) args[0]));
+            this.stub = stub(burp.api.montoya.persistence.PersistedObject.class, methods);
+        }
+
+        long writes(String key) {
+            AtomicLong count = writesByKey.get(key);
+            return count != null ? count.get() : 0;
+        }
+    }
+
+    // --- HTTP MESSAGES ---
+
+    static HttpService httpService(String host, int port, boolean secure) {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("host", args -> host);
+        methods.put("port", args -> port);
+        methods.put("secure", args -> secure);
+        methods.put("ipAddress", args -> "127.0.0.1");
+        methods.put("toString", args -> (secure ? "https://" : "http://") + host + ":" + port);
+        return stub(HttpService.class, methods);
+    }
+
+    static ByteArray byteArray(byte[] bytes) {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("getBytes", args -> bytes);
+        methods.put("length", args -> bytes.length);
+        methods.put("getByte", args -> bytes[(int) args[0]]);
+        methods.put("subArray", args -> {
+            if (args.length == 2) return byteArray(Arrays.copyOfRange(bytes, (int) args[0], (int) args[1]));
+            burp.api.montoya.core.Range range = (burp.api.montoya.core.Range) args[0];
+            return byteArray(Arrays.copyOfRange(bytes, range.startIndexInclusive(), range.endIndexExclusive()));
+        });
+        methods.put("toString", args -> new String(bytes, StandardCharsets.ISO_8859_1));
+        return stub(ByteArray.class, methods);
+    }
+
+    /** Backs both HttpRequest and HttpRequestToBeSent. */
+    static <T extends HttpRequest> T request(Class<T> type, TrafficCorpus.Exchange exchange, int messageId) {
+        HttpService service = httpService(exchange.host, exchange.port, exchange.secure);
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("httpService", args -> service);
+        methods.put("method", args -> exchange.method);
+        methods.put("path", args -> exchange.path);
+        methods.put("pathWithoutQuery", args -> {
+            int query = exchange.path.indexOf('?');
+            return query >= 0 ? exchange.path.substring(0, query) : exchange.path;
+        });
+        methods.put("url", args -> exchange.url());
+        methods.put("messageId", args -> messageId);
+        methods.put("headerValue", args -> "Host".equalsIgnoreCase((String) args[0]) ? exchange.host : null);
+        methods.put("body", args -> byteArray(new byte[0]));
+        methods.put("bodyToString", args -> "");
+        methods.put("toByteArray", args -> byteArray(exchange.requestBytes()));
+        methods.put("toString", args -> exchange.method + " " + exchange.url());
+        return stub(type, methods);
+    }
+
+    /** Backs both HttpResponse and HttpResponseReceived. */
+    static <T extends HttpResponse> T response(Class<T> type, TrafficCorpus.Exchange exchange, HttpRequest initiatingRequest, int messageId) {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("statusCode", args -> (short) exchange.status);
+        methods.put("headerValue", args -> "Content-Type".equalsIgnoreCase((String) args[0]) ? exchange.contentType : null);
+        methods.put("hasHeader", args -> "Content-Type".equalsIgnoreCase((String) args[0]) && exchange.contentType != null);
+        methods.put("inferredMimeType", args -> exchange.mimeType);
+        methods.put("statedMimeType", args -> exchange.mimeType);
+        methods.put("body", args -> byteArray(exchange.body));
+        // Burp decodes bodies as ISO-8859-1, one char per byte
+        methods.put("bodyToString", args -> new String(exchange.body, StandardCharsets.ISO_8859_1));
+        methods.put("toByteArray", args -> byteArray(exchange.responseBytes()));
+        methods.put("initiatingRequest", args -> initiatingRequest);
+        methods.put("messageId", args -> messageId);
+        methods.put("toString", args -> "HTTP " + exchange.status + " " + exchange.url());
+        return stub(type, methods);
+    }
+
+    static HttpRequestResponse requestResponse(HttpRequest request, HttpResponse response) {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("request", args -> request);
+        methods.put("response", args -> response);
+        methods.put("hasResponse", args -> response != null);
+        methods.put("httpService", args -> request != null ? request.httpService() : null);
+        methods.put("url", args -> request != null ? request.url() : null);
+        return stub(HttpRequestResponse.class, methods);
+    }
+
+    // --- GENERIC STUBS ---
+
+    private static final Map<Class<?>, Object> DEFAULT_STUBS = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> overrides) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object[] safeArgs = args != null ? args : new Object[0];
+            Function<Object[], Object> override = overrides.get(method.getName());
+            if (override != null) return override.apply(safeArgs);
+            switch (method.getName()) {
+                case "equals":
+                    return safeArgs.length == 1 && proxy == safeArgs[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Fake" + type.getSimpleName();
+                default:
+                    return defaultValue(method);
+            }
+        };
+        return (T) Proxy.newProxyInstance(FakeMontoya.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == String.class) return "";
+        if (type == Optional.class) return Optional.empty();
+        if (type == java.util.List.class) return Collections.emptyList();
+        if (type == java.util.Set.class) return Collections.emptySet();
+        if (type == java.util.Map.class) return Collections.emptyMap();
+        if (Component.class.isAssignableFrom(type)) return new JPanel();
+        if (type.isInterface()) {
+            return DEFAULT_STUBS.computeIfAbsent(type, t -> stub(t, Collections.emptyMap()));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,516 @@
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// --- LOAD TEST HARNESS ---
+// Replays a traffic corpus through TrafficWatcher via the fake Montoya API and prints a
+// JSON report (throughput, handler latency percentiles, heap growth, save backlog, EDT lag).
+//
+//   gradle loadTest -PloadTestArgs="--threads 4 --duration 30 --rate 500 --out build/load.json"
+//
+// Options (defaults in brackets):
+//   --corpus FILE          replay a recorded JSON Lines corpus instead of synthetic traffic
+//   --write-corpus FILE    write the corpus in use to FILE, for replaying against another version
+//   --seed N [1]  --corpus-size N [500]  --hosts N [5]  --bundle-kb N [256]  --paths-per-bundle N [200]
+//   --mix js=5,html=15,json=20,image=20,api=40
+//   --threads N [4]        concurrent handler threads (Burp calls handlers from many threads)
+//   --rate N [0]           target exchanges per second across all threads, 0 = as fast as possible
+//   --duration S [20]      measured seconds; --requests N stops after N exchanges instead
+//   --warmup S [5]         unmeasured seconds run first so the JIT settles
+//   --churn F [0.05]       fraction of live API requests rewritten to a never-seen path
+//   --scope-only           enable the extension's "In-Scope Only" setting
+//   --scope-suffix S       hosts ending in S are in scope [everything]
+//   --out FILE             also write the report to FILE
+//   --label S              free-form label stored in the report (e.g. a git revision)
+public class LoadTest {
+
+    private static final int REPORT_VERSION = 1;
+    private static final long DRAIN_TIMEOUT_MS = 120_000;
+
+    public static void main(String[] argv) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Options options = Options.parse(argv);
+
+        TrafficCorpus corpus = options.corpus != null
+                ? TrafficCorpus.read(Path.of(options.corpus))
+                : TrafficCorpus.synthetic(options.seed, options.corpusSize, options.hosts, options.bundleKb,
+                        options.pathsPerBundle, options.mix);
+        if (options.writeCorpus != null) {
+            corpus.write(Path.of(options.writeCorpus));
+        }
+
+        FakeMontoya.installObjectFactory();
+        String suffix = options.scopeSuffix;
+        FakeMontoya fake = new FakeMontoya(url -> suffix == null || hostOf(url).endsWith(suffix));
+        if (options.scopeOnly) {
+            ShadowSettings settings = new ShadowSettings();
+            settings.scopeOnly = true;
+            fake.persistence.strings.put("shadow_settings", new Gson().toJson(settings));
+        }
+
+        ShadowApiVisualizer extension = new ShadowApiVisualizer();
+        extension.initialize(fake.api());
+        HttpHandler handler = fake.handler;
+        if (handler == null) throw new IllegalStateException("Extension did not register an HttpHandler");
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        if (options.warmupSeconds > 0) {
+            new Phase(corpus, handler, options, 0).run(options.warmupSeconds * 1000L, 0);
+            awaitDrain(extension);
+        }
+
+        long heapStart = usedHeapAfterGc(memory);
+        long writesStart = fake.persistence.writes.get();
+        long bytesStart = fake.persistence.bytesWritten.get();
+        int findingsStart = extension.findingStore().snapshot().size();
+        long chunkHitsStart = extension.chunkCache().hits();
+        long chunkMissesStart = extension.chunkCache().misses();
+
+        // Background probes: heap, save backlog and how long the EDT takes to pick up a task
+        Sampler sampler = new Sampler(extension, memory);
+        sampler.start();
+        Phase phase = new Phase(corpus, handler, options, options.warmupSeconds > 0 ? 1L << 40 : 0);
+        PhaseResult result = phase.run(options.durationSeconds * 1000L, options.requests);
+        sampler.stop();
+
+        long drainStart = System.nanoTime();
+        boolean drained = awaitDrain(extension);
+        long drainMillis = (System.nanoTime() - drainStart) / 1_000_000;
+        long heapEnd = usedHeapAfterGc(memory);
+
+        JsonObject report = new JsonObject();
+        report.addProperty("reportVersion", REPORT_VERSION);
+        report.addProperty("timestamp", Instant.now().toString());
+        report.addProperty("label", options.label);
+        report.add("config", options.toJson(corpus));
+
+        double seconds = result.elapsedNanos / 1e9;
+        JsonObject throughput = new JsonObject();
+        throughput.addProperty("exchanges", result.exchanges);
+        throughput.addProperty("elapsedSeconds", round(seconds));
+        throughput.addProperty("exchangesPerSecond", round(result.exchanges / seconds));
+        throughput.addProperty("handlerCallsPerSecond", round(2 * result.exchanges / seconds));
+        throughput.addProperty("bodyMegabytesPerSecond", round(result.bodyBytes / seconds / (1024 * 1024)));
+        throughput.addProperty("errors", result.errors);
+        report.add("throughput", throughput);
+
+        JsonObject latency = new JsonObject();
+        latency.add("request", percentiles(result.requestNanos));
+        latency.add("response", percentiles(result.responseNanos));
+        if (options.rate > 0) {
+            // Measured from the scheduled start, so time spent queued behind slow calls counts
+            latency.add("scheduledToComplete", percentiles(result.scheduledNanos));
+        }
+        for (Map.Entry<String, LatencyRecorder> entry : result.responseNanosByKind.entrySet()) {
+            latency.add("response." + entry.getKey(), percentiles(entry.getValue()));
+        }
+        report.add("latencyMicros", latency);
+
+        JsonObject heap = new JsonObject();
+        heap.addProperty("startBytes", heapStart);
+        heap.addProperty("peakBytes", sampler.peakHeap);
+        heap.addProperty("endBytes", heapEnd);
+        heap.addProperty("growthBytes", heapEnd - heapStart);
+        int findingsEnd = extension.findingStore().snapshot().size();
+        int newFindings = findingsEnd - findingsStart;
+        heap.addProperty("growthBytesPerNewFinding", newFindings > 0 ? (heapEnd - heapStart) / newFindings : 0);
+        report.add("heap", heap);
+
+        JsonObject save = new JsonObject();
+        save.addProperty("writes", fake.persistence.writes.get() - writesStart);
+        save.addProperty("bytesWritten", fake.persistence.bytesWritten.get() - bytesStart);
+        save.addProperty("maxBacklogFindings", sampler.maxBacklog);
+        save.addProperty("meanBacklogFindings", round(sampler.meanBacklog()));
+        save.addProperty("drainMillis", drainMillis);
+        save.addProperty("drained", drained);
+        report.add("save", save);
+
+        JsonObject edt = new JsonObject();
+        edt.add("lag", percentiles(sampler.edtLag));
+        report.add("edtMicros", edt);
+
+        JsonObject findings = new JsonObject();
+        findings.addProperty("start", findingsStart);
+        findings.addProperty("end", findingsEnd);
+        findings.addProperty("hosts", extension.findingStore().snapshot().hostCount());
+        findings.addProperty("logLines", fake.logLines.get());
+        findings.addProperty("errorLines", fake.errorLines.get());
+        report.add("findings", findings);
+
+        JsonObject chunks = new JsonObject();
+        chunks.addProperty("hits", extension.chunkCache().hits() - chunkHitsStart);
+        chunks.addProperty("misses", extension.chunkCache().misses() - chunkMissesStart);
+        chunks.addProperty("entries", extension.chunkCache().size());
+        report.add("chunkCache", chunks);
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+        System.out.println(json);
+        if (options.out != null) {
+            Files.writeString(Path.of(options.out), json + "\n", StandardCharsets.UTF_8);
+        }
+        System.exit(result.errors == 0 ? 0 : 1);
+    }
+
+    private static String hostOf(String url) {
+        int start = url.indexOf("://");
+        start = start >= 0 ? start + 3 : 0;
+        int end = start;
+        while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != ':') end++;
+        return url.substring(start, end);
+    }
+
+    private static boolean awaitDrain(ShadowApiVisualizer extension) throws Exception {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (!extension.isSaveDrained()) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(5);
+        }
+        SwingUtilities.invokeAndWait(() -> { }); // Let queued tree updates finish too
+        return true;
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            LockSupport.parkNanos(50_000_000L);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static JsonObject percentiles(LatencyRecorder recorder) {
+        long[] values = recorder.sorted();
+        JsonObject json = new JsonObject();
+        json.addProperty("count", values.length);
+        if (values.length == 0) return json;
+        long sum = 0;
+        for (long value : values) sum += value;
+        json.addProperty("mean", round(sum / (double) values.length / 1000));
+        json.addProperty("p50", round(percentile(values, 0.50) / 1000.0));
+        json.addProperty("p90", round(percentile(values, 0.90) / 1000.0));
+        json.addProperty("p99", round(percentile(values, 0.99) / 1000.0));
+        json.addProperty("p999", round(percentile(values, 0.999) / 1000.0));
+        json.addProperty("max", round(values[values.length - 1] / 1000.0));
+        return json;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // --- LATENCY RECORDER ---
+    // Raw samples in a growable array; one per thread, merged after the run.
+    static final class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        void record(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+
+        void addAll(LatencyRecorder other) {
+            for (int i = 0; i < other.size; i++) record(other.values[i]);
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    static final class PhaseResult {
+        long exchanges;
+        long errors;
+        long bodyBytes;
+        long elapsedNanos;
+        final LatencyRecorder requestNanos = new LatencyRecorder();
+        final LatencyRecorder responseNanos = new LatencyRecorder();
+        final LatencyRecorder scheduledNanos = new LatencyRecorder();
+        final Map<String, LatencyRecorder> responseNanosByKind = new LinkedHashMap<>();
+
+        synchronized void merge(PhaseResult other) {
+            exchanges += other.exchanges;
+            errors += other.errors;
+            bodyBytes += other.bodyBytes;
+            requestNanos.addAll(other.requestNanos);
+            responseNanos.addAll(other.responseNanos);
+            scheduledNanos.addAll(other.scheduledNanos);
+            for (Map.Entry<String, LatencyRecorder> entry : other.responseNanosByKind.entrySet()) {
+                responseNanosByKind.computeIfAbsent(entry.getKey(), k -> new LatencyRecorder()).addAll(entry.getValue());
+            }
+        }
+    }
+
+    // --- PHASE ---
+    // Worker threads pull sequence numbers from a shared counter. With a target rate each
+    // sequence number has a due time (open loop), so a slow handler delays later requests
+    // instead of silently lowering the offered load.
+    static final class Phase {
+        private final TrafficCorpus corpus;
+        private final HttpHandler handler;
+        private final Options options;
+        private final long churnBase; // Keeps churn paths of the measured phase distinct from warmup
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+
+        Phase(TrafficCorpus corpus, HttpHandler handler, Options options, long churnBase) {
+            this.corpus = corpus;
+            this.handler = handler;
+            this.options = options;
+            this.churnBase = churnBase;
+        }
+
+        PhaseResult run(long durationMillis, long limit) throws InterruptedException {
+            PhaseResult total = new PhaseResult();
+            long start = System.nanoTime();
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < options.threads; t++) {
+                Thread worker = new Thread(() -> total.merge(work(start, limit)), "loadtest-worker-" + t);
+                workers.add(worker);
+                worker.start();
+            }
+
+            if (limit <= 0) {
+                Thread.sleep(durationMillis);
+                running.set(false);
+            }
+            for (Thread worker : workers) worker.join();
+            total.elapsedNanos = System.nanoTime() - start;
+            return total;
+        }
+
+        private PhaseResult work(long start, long limit) {
+            PhaseResult result = new PhaseResult();
+            double nanosPerExchange = options.rate > 0 ? 1e9 / options.rate : 0;
+            while (running.get()) {
+                long seq = sequence.getAndIncrement();
+                if (limit > 0 && seq >= limit) break;
+
+                long due = start + (long) (seq * nanosPerExchange);
+                if (nanosPerExchange > 0) {
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0 && running.get()) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+
+                TrafficCorpus.Exchange exchange = corpus.get(seq);
+                if (isChurn(exchange, seq)) {
+                    exchange = exchange.withPath(exchange.path + "/n" + (churnBase + seq));
+                }
+                int messageId = (int) seq;
+                HttpRequestToBeSent request = FakeMontoya.request(HttpRequestToBeSent.class, exchange, messageId);
+                HttpResponseReceived response = FakeMontoya.response(HttpResponseReceived.class, exchange, request, messageId);
+
+                try {
+                    long t0 = System.nanoTime();
+                    handler.handleHttpRequestToBeSent(request);
+                    long t1 = System.nanoTime();
+                    handler.handleHttpResponseReceived(response);
+                    long t2 = System.nanoTime();
+
+                    result.requestNanos.record(t1 - t0);
+                    result.responseNanos.record(t2 - t1);
+                    result.responseNanosByKind.computeIfAbsent(exchange.kind, k -> new LatencyRecorder()).record(t2 - t1);
+                    if (nanosPerExchange > 0) result.scheduledNanos.record(t2 - due);
+                    result.bodyBytes += exchange.body.length;
+                    result.exchanges++;
+                } catch (RuntimeException e) {
+                    if (result.errors++ == 0) e.printStackTrace();
+                }
+            }
+            return result;
+        }
+
+        private boolean isChurn(TrafficCorpus.Exchange exchange, long seq) {
+            if (!"api".equals(exchange.kind) || options.churn <= 0) return false;
+            long mixed = (seq + 1) * 0x9E3779B97F4A7C15L;
+            return (mixed >>> 11) % 10_000 < options.churn * 10_000;
+        }
+    }
+
+    // --- SAMPLER ---
+    static final class Sampler {
+        private final ShadowApiVisualizer extension;
+        private final MemoryMXBean memory;
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "loadtest-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final AtomicBoolean probeInFlight = new AtomicBoolean();
+        final LatencyRecorder edtLag = new LatencyRecorder();
+        volatile long peakHeap;
+        volatile int maxBacklog;
+        private long backlogSum;
+        private long backlogSamples;
+
+        Sampler(ShadowApiVisualizer extension, MemoryMXBean memory) {
+            this.extension = extension;
+            this.memory = memory;
+        }
+
+        void start() {
+            executor.scheduleAtFixedRate(this::sample, 0, 50, TimeUnit.MILLISECONDS);
+        }
+
+        void stop() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        synchronized double meanBacklog() {
+            return backlogSamples == 0 ? 0 : backlogSum / (double) backlogSamples;
+        }
+
+        private void sample() {
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            int backlog = extension.saveBacklog();
+            synchronized (this) {
+                maxBacklog = Math.max(maxBacklog, backlog);
+                backlogSum += backlog;
+                backlogSamples++;
+            }
+            // One probe at a time; a probe still queued means the EDT is behind
+            if (probeInFlight.compareAndSet(false, true)) {
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() -> {
+                    long lag = System.nanoTime() - posted;
+                    synchronized (edtLag) {
+                        edtLag.record(lag);
+                    }
+                    probeInFlight.set(false);
+                });
+            }
+        }
+    }
+
+    // --- OPTIONS ---
+    static final class Options {
+        String corpus;
+        String writeCorpus;
+        long seed = 1;
+        int corpusSize = 500;
+        int hosts = 5;
+        int bundleKb = 256;
+        int pathsPerBundle = 200;
+        Map<String, Integer> mix = parseMix("js=5,html=15,json=20,image=20,api=40");
+        int threads = 4;
+        double rate;
+        int durationSeconds = 20;
+        long requests;
+        int warmupSeconds = 5;
+        double churn = 0.05;
+        boolean scopeOnly;
+        String scopeSuffix;
+        String out;
+        String label = "";
+
+        static Options parse(String[] argv) {
+            Options options = new Options();
+            for (int i = 0; i < argv.length; i++) {
+                String arg = argv[i];
+                if (arg.isEmpty()) continue;
+                String name = arg;
+                String value = null;
+                int eq = arg.indexOf('=');
+                if (arg.startsWith("--") && eq > 0) {
+                    name = arg.substring(0, eq);
+                    value = arg.substring(eq + 1);
+                }
+                if (!name.equals("--scope-only") && value == null) {
+                    if (i + 1 >= argv.length) throw new IllegalArgumentException("Missing value for " + name);
+                    value = argv[++i];
+                }
+                switch (name) {
+                    case "--corpus": options.corpus = value; break;
+                    case "--write-corpus": options.writeCorpus = value; break;
+                    case "--seed": options.seed = Long.parseLong(value); break;
+                    case "--corpus-size": options.corpusSize = Integer.parseInt(value); break;
+                    case "--hosts": options.hosts = Integer.parseInt(value); break;
+                    case "--bundle-kb": options.bundleKb = Integer.parseInt(value); break;
+                    case "--paths-per-bundle": options.pathsPerBundle = Integer.parseInt(value); break;
+                    case "--mix": options.mix = parseMix(value); break;
+                    case "--threads": options.threads = Integer.parseInt(value); break;
+                    case "--rate": options.rate = Double.parseDouble(value); break;
+                    case "--duration": options.durationSeconds = Integer.parseInt(value); break;
+                    case "--requests": options.requests = Long.parseLong(value); break;
+                    case "--warmup": options.warmupSeconds = Integer.parseInt(value); break;
+                    case "--churn": options.churn = Double.parseDouble(value); break;
+                    case "--scope-only": options.scopeOnly = true; break;
+                    case "--scope-suffix": options.scopeSuffix = value; break;
+                    case "--out": options.out = value; break;
+                    case "--label": options.label = value; break;
+                    default: throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            if (options.threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+            return options;
+        }
+
+        private static Map<String, Integer> parseMix(String text) {
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String part : text.split(",")) {
+                String[] kv = part.trim().split("=");
+                if (kv.length != 2) throw new IllegalArgumentException("Bad --mix entry: " + part);
+                mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+            }
+            return mix;
+        }
+
+        JsonObject toJson(TrafficCorpus corpusInUse) {
+            JsonObject json = new JsonObject();
+            json.addProperty("corpus", corpus != null ? corpus : "synthetic");
+            if (corpus == null) {
+                json.addProperty("seed", seed);
+                json.addProperty("hosts", hosts);
+                json.addProperty("bundleKb", bundleKb);
+                json.addProperty("pathsPerBundle", pathsPerBundle);
+            }
+            json.addProperty("corpusExchanges", corpusInUse.size());
+            json.addProperty("corpusBodyBytes", corpusInUse.totalBytes());
+            json.add("corpusKinds", new Gson().toJsonTree(corpusInUse.kindCounts()));
+            json.addProperty("threads", threads);
+            json.addProperty("rate", rate);
+            json.addProperty("durationSeconds", durationSeconds);
+            json.addProperty("requests", requests);
+            json.addProperty("warmupSeconds", warmupSeconds);
+            json.addProperty("churn", churn);
+            json.addProperty("scopeOnly", scopeOnly);
+            json.addProperty("availableProcessors", Runtime.getRuntime().availableProcessors());
+            json.addProperty("maxHeapBytes", Runtime.getRuntime().maxMemory());
+            json.addProperty("javaVersion", System.getProperty("java.version"));
+            return json;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+import burp.api.montoya.http.message.MimeType;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// --- TRAFFIC CORPUS ---
+// A fixed list of request/response pairs that the harness cycles through. Built either
+// from a seeded synthetic generator or from a recorded JSON Lines file, and can be
+// written back out so two versions can be compared on the exact same traffic.
+class TrafficCorpus {
+
+    // --- EXCHANGE ---
+    static final class Exchange {
+        final String kind;
+        final boolean secure;
+        final String host;
+        final int port;
+        final String method;
+        final String path;
+        final int status;
+        final String contentType;
+        final MimeType mimeType;
+        final byte[] body;
+
+        Exchange(String kind, boolean secure, String host, int port, String method, String path,
+                 int status, String contentType, MimeType mimeType, byte[] body) {
+            this.kind = kind;
+            this.secure = secure;
+            this.host = host;
+            this.port = port;
+            this.method = method;
+            this.path = path;
+            this.status = status;
+            this.contentType = contentType;
+            this.mimeType = mimeType;
+            this.body = body;
+        }
+
+        /** Same target, different path: used for churn requests that discover new endpoints. */
+        Exchange withPath(String newPath) {
+            return new Exchange(kind, secure, host, port, method, newPath, status, contentType, mimeType, body);
+        }
+
+        String url() {
+            boolean defaultPort = secure ? port == 443 : port == 80;
+            return (secure ? "https://" : "http://") + host + (defaultPort ? "" : ":" + port) + path;
+        }
+
+        byte[] requestBytes() {
+            String head = method + " " + path + " HTTP/1.1\r\nHost: " + host + "\r\n\r\n";
+            return head.getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+        byte[] responseBytes() {
+            String head = "HTTP/1.1 " + status + " OK\r\n"
+                    + (contentType != null ? "Content-Type: " + contentType + "\r\n" : "")
+                    + "Content-Length: " + body.length + "\r\n\r\n";
+            byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+            byte[] bytes = new byte[headBytes.length + body.length];
+            System.arraycopy(headBytes, 0, bytes, 0, headBytes.length);
+            System.arraycopy(body, 0, bytes, headBytes.length, body.length);
+            return bytes;
+        }
+    }
+
+    final List<Exchange> exchanges;
+
+    private TrafficCorpus(List<Exchange> exchanges) {
+        this.exchanges = exchanges;
+    }
+
+    int size() {
+        return exchanges.size();
+    }
+
+    Exchange get(long sequence) {
+        return exchanges.get((int) (sequence % exchanges.size()));
+    }
+
+    long totalBytes() {
+        long total = 0;
+        for (Exchange exchange : exchanges) total += exchange.body.length;
+        return total;
+    }
+
+    Map<String, Integer> kindCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Exchange exchange : exchanges) counts.merge(exchange.kind, 1, Integer::sum);
+        return counts;
+    }
+
+    // --- SYNTHETIC GENERATOR ---
+
+    private static final String[] PREFIXES = {
+            "/api/", "/api/v1/", "/api/v2/", "/v1/", "/v2/", "/rest/", "/internal/", "/admin/",
+            "/service/", "/auth/", "/users/", "/account/", "/config/", "/export/", "/uploads/"
+    };
+    private static final String[] WORDS = {
+            "users", "orders", "items", "cart", "billing", "invoice", "profile", "session", "token",
+            "search", "report", "audit", "feature", "flags", "tenant", "team", "role", "webhook",
+            "settings", "notify", "status", "health", "metrics", "export", "import", "{id}", ":id"
+    };
+
+    /**
+     * Builds a seeded synthetic corpus. {@code mix} holds relative weights for the
+     * kinds "js", "html", "json", "image" and "api" (a live request with a tiny body).
+     */
+    static TrafficCorpus synthetic(long seed, int size, int hosts, int bundleKb, int pathsPerBundle, Map<String, Integer> mix) {
+        Random random = new Random(seed);
+        int totalWeight = 0;
+        for (int weight : mix.values()) totalWeight += weight;
+        if (totalWeight <= 0) throw new IllegalArgumentException("mix weights must add up to more than 0");
+
+        // Every host gets its own endpoint vocabulary; live requests and bundles draw from it
+        List<List<String>> endpoints = new ArrayList<>();
+        for (int h = 0; h < hosts; h++) {
+            List<String> paths = new ArrayList<>();
+            for (int i = 0; i < pathsPerBundle * 2; i++) paths.add(randomPath(random));
+            endpoints.add(paths);
+        }
+
+        List<Exchange> exchanges = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int h = random.nextInt(hosts);
+            String host = "app" + h + ".target.test";
+            List<String> paths = endpoints.get(h);
+            String kind = pick(random, mix, totalWeight);
+            switch (kind) {
+                case "js":
+                    exchanges.add(new Exchange(kind, true, host, 443, "GET", "/static/js/chunk." + i + ".js", 200,
+                            "application/javascript", MimeType.SCRIPT, bundle(random, paths, bundleKb * 1024, pathsPerBundle)));
+                    break;
+                case "html":
+                    exchanges.add(new Exchange(kind, true, host, 443, "GET", "/page/" + i, 200,
+                            "text/html; charset=utf-8", MimeType.HTML, page(random, paths)));
+                    break;
+                case "json":
+                    exchanges.add(new Exchange(kind, true, host, 443, "GET", "/data/" + i, 200,
+                            "application/json", MimeType.JSON, json(random, paths)));
+                    break;
+                case "image":
+                    byte[] image = new byte[8192 + random.nextInt(32768)];
+                    random.nextBytes(image);
+                    image[0] = (byte) 0x89;
+                    image[1] = 'P';
+                    image[2] = 'N';
+                    image[3] = 'G';
+                    exchanges.add(new Exchange(kind, true, host, 443, "GET", "/img/" + i + ".png", 200,
+                            "image/png", MimeType.IMAGE_PNG, image));
+                    break;
+                default:
+                    String path = paths.get(random.nextInt(paths.size())).replace("{id}", "42").replace(":id", "7");
+                    exchanges.add(new Exchange("api", true, host, 443, random.nextBoolean() ? "GET" : "POST", path, 200,
+                            "application/json", MimeType.JSON, "{\"ok\":true}".getBytes(StandardCharsets.ISO_8859_1)));
+                    break;
+            }
+        }
+        return new TrafficCorpus(exchanges);
+    }
+
+    private static String pick(Random random, Map<String, Integer> mix, int totalWeight) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) return entry.getKey();
+        }
+        return "api";
+    }
+
+    private static String randomPath(Random random) {
+        StringBuilder sb = new StringBuilder(PREFIXES[random.nextInt(PREFIXES.length)]);
+        int depth = 1 + random.nextInt(3);
+        for (int d = 0; d < depth; d++) {
+            if (d > 0) sb.append('/');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    // Minified-looking code with endpoint strings spread evenly through it
+    private static byte[] bundle(Random random, List<String> paths, int targetBytes, int pathCount) {
+        StringBuilder sb = new StringBuilder(targetBytes + 256);
+        sb.append("(self.webpackChunk=self.webpackChunk||[]).push([[").append(random.nextInt(1000)).append("],{\n");
+        int every = Math.max(1, targetBytes / Math.max(1, pathCount));
+        int nextPath = every;
+        int fn = 0;
+        while (sb.length() < targetBytes) {
+            if (sb.length() >= nextPath) {
+                String verb = random.nextBoolean() ? "get" : "post";
+                sb.append("e.").append(verb).append("(\"").append(paths.get(random.nextInt(paths.size()))).append("\",t);");
+                nextPath += every;
+            }
+            sb.append("function f").append(fn++).append("(a,b){var c=a+b*").append(random.nextInt(97))
+                    .append(";return c>10?c:b}");
+            if (fn % 8 == 0) sb.append('\n');
+        }
+        sb.append("}]);\n");
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] page(Random random, List<String> paths) {
+        StringBuilder sb = new StringBuilder("<!doctype html><html><head><title>Page</title></head><body>");
+        for (int i = 0; i < 200; i++) sb.append("<div class=\"row r").append(i).append("\">Lorem ipsum dolor sit amet</div>");
+        sb.append("<script>window.__CONFIG__={api:\"").append(paths.get(random.nextInt(paths.size())))
+                .append("\",next:\"").append(paths.get(random.nextInt(paths.size()))).append("\"};</script>");
+        sb.append("</body></html>");
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] json(Random random, List<String> paths) {
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 50; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item ").append(i).append('"');
+            if (i % 10 == 0) sb.append(",\"href\":\"").append(paths.get(random.nextInt(paths.size()))).append('"');
+            sb.append('}');
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // --- RECORDED CORPUS (JSON LINES) ---
+    // One exchange per line: {"kind","url","method","status","contentType","mimeType","bodyBase64"}
+
+    static TrafficCorpus read(Path file) throws IOException {
+        Gson gson = new Gson();
+        List<Exchange> exchanges = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonObject json = gson.fromJson(line, JsonObject.class);
+                URI uri = URI.create(json.get("url").getAsString());
+                boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+                int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+                String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+                if (uri.getRawQuery() != null) path += "?" + uri.getRawQuery();
+                String contentType = json.has("contentType") ? json.get("contentType").getAsString() : null;
+                MimeType mimeType = json.has("mimeType") ? MimeType.valueOf(json.get("mimeType").getAsString()) : MimeType.UNRECOGNIZED;
+                byte[] body = json.has("bodyBase64") ? Base64.getDecoder().decode(json.get("bodyBase64").getAsString()) : new byte[0];
+                exchanges.add(new Exchange(
+                        json.has("kind") ? json.get("kind").getAsString() : "recorded",
+                        secure, uri.getHost(), port,
+                        json.has("method") ? json.get("method").getAsString() : "GET",
+                        path,
+                        json.has("status") ? json.get("status").getAsInt() : 200,
+                        contentType, mimeType, body));
+            }
+        }
+        if (exchanges.isEmpty()) throw new IOException("Corpus " + file + " is empty");
+        return new TrafficCorpus(exchanges);
+    }
+
+    void write(Path file) throws IOException {
+        Gson gson = new Gson();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Exchange exchange : exchanges) {
+                JsonObject json = new JsonObject();
+                json.addProperty("kind", exchange.kind);
+                json.addProperty("url", exchange.url());
+                json.addProperty("method", exchange.method);
+                json.addProperty("status", exchange.status);
+                if (exchange.contentType != null) json.addProperty("contentType", exchange.contentType);
+                json.addProperty("mimeType", exchange.mimeType.name());
+                json.addProperty("bodyBase64", Base64.getEncoder().encodeToString(exchange.body));
+                writer.write(gson.toJson(json));
+                writer.newLine();
+            }
+        }
+    }
+}
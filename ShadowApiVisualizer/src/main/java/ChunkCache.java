@@ -0,0 +1,185 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+// --- CONTENT-DEFINED CHUNKING ---
+// Splits a body at positions chosen by its content rather than by offset, so inserting
+// or changing a few bytes (a new build hash, a patched function) only moves the cuts
+// next to the edit. A gear rolling hash over roughly the last 32 characters arms a cut;
+// the cut itself lands just after the next ';' or newline so statements stay whole.
+final class ContentChunker {
+
+    static final int MIN_CHUNK = 4 * 1024;
+    static final int MAX_CHUNK = 64 * 1024;
+    private static final int CUT_BITS = 13; // About 8 KB between armed cuts past the minimum
+
+    private static final int[] GEAR = new int[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5AD0A91L);
+        for (int i = 0; i < GEAR.length; i++) GEAR[i] = random.nextInt();
+    }
+
+    private ContentChunker() {
+    }
+
+    /** Chunk start offsets within [from, to), followed by {@code to}. */
+    static int[] boundaries(String body, int from, int to) {
+        int[] cuts = new int[Math.max(4, (to - from) / (MIN_CHUNK * 2) + 2)];
+        int count = 0;
+        cuts[count++] = from;
+
+        int start = from;
+        int hash = 0;
+        boolean armed = false;
+        for (int i = from; i < to; i++) {
+            char c = body.charAt(i);
+            hash = (hash << 1) + GEAR[c & 0xFF];
+            int length = i + 1 - start;
+            if (length < MIN_CHUNK) continue;
+            // High bits: they mix the whole window, the low ones only the last few characters
+            if (!armed && (hash >>> (32 - CUT_BITS)) == 0) armed = true;
+
+            if ((armed && (c == ';' || c == '\n')) || length >= MAX_CHUNK) {
+                if (i + 1 >= to) break;
+                if (count == cuts.length) cuts = Arrays.copyOf(cuts, count * 2);
+                cuts[count++] = i + 1;
+                start = i + 1;
+                armed = false;
+            }
+        }
+        if (count == cuts.length) cuts = Arrays.copyOf(cuts, count + 1);
+        cuts[count++] = to;
+        return Arrays.copyOf(cuts, count);
+    }
+}
+
+// --- CHUNK KEY ---
+// 128 bits of content hash plus length. Covers the chunk and the look-ahead window its
+// scan may read, so an equal key means an equal scan result. Text before the chunk is
+// not covered: a custom pattern with a lookbehind across a cut may reuse a stale result.
+final class ChunkKey {
+    private final long a;
+    private final long b;
+    private final int length;
+    private final boolean atRegionEnd;
+
+    private ChunkKey(long a, long b, int length, boolean atRegionEnd) {
+        this.a = a;
+        this.b = b;
+        this.length = length;
+        this.atRegionEnd = atRegionEnd;
+    }
+
+    static ChunkKey of(String body, int from, int to, boolean atRegionEnd) {
+        long a = 0xCBF29CE484222325L;
+        long b = 0x9E3779B97F4A7C15L;
+        for (int i = from; i < to; i++) {
+            char c = body.charAt(i);
+            a = (a ^ c) * 0x100000001B3L;
+            b = Long.rotateLeft(b + c * 0xFF51AFD7ED558CCDL, 29) * 0xC4CEB9FE1A85EC53L;
+        }
+        return new ChunkKey(a, b, to - from, atRegionEnd);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ChunkKey)) return false;
+        ChunkKey other = (ChunkKey) o;
+        return a == other.a && b == other.b && length == other.length && atRegionEnd == other.atRegionEnd;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(a ^ b);
+    }
+}
+
+// --- CHUNK RESULT ---
+// Matches owned by one chunk, with offsets relative to the chunk start.
+final class ChunkResult {
+    final Pattern pattern; // The pattern that produced these matches
+    final String[] paths;
+    final int[] starts;
+    final int[] ends;
+    final int[] groups; // See PathMatch.group
+
+    ChunkResult(Pattern pattern, String[] paths, int[] starts, int[] ends, int[] groups) {
+        this.pattern = pattern;
+        this.paths = paths;
+        this.starts = starts;
+        this.ends = ends;
+        this.groups = groups;
+    }
+}
+
+// --- CHUNK CACHE ---
+// Scan results per chunk, shared across responses: the next build of a bundle only
+// pays for the chunks that changed. Same two-generation scheme as ScopeCache. Results
+// belong to one pattern; binding a different pattern drops everything.
+class ChunkCache {
+
+    private final int maxEntries;
+    private volatile Map<ChunkKey, ChunkResult> young = new ConcurrentHashMap<>();
+    private volatile Map<ChunkKey, ChunkResult> old = new ConcurrentHashMap<>();
+    private volatile Pattern pattern;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ChunkCache(int maxEntries) {
+        this.maxEntries = Math.max(2, maxEntries);
+    }
+
+    /** Makes sure cached results were produced by {@code current}. */
+    public void bind(Pattern current) {
+        if (pattern == current) return;
+        synchronized (this) {
+            if (pattern != current) {
+                young = new ConcurrentHashMap<>();
+                old = new ConcurrentHashMap<>();
+                pattern = current;
+            }
+        }
+    }
+
+    public ChunkResult get(Pattern current, ChunkKey key) {
+        ChunkResult result = young.get(key);
+        if (result == null) {
+            result = old.get(key);
+            if (result != null) put(key, result); // Promote
+        }
+        // A scan that raced with a pattern change may have stored results for the old one
+        if (result != null && result.pattern != current) result = null;
+        (result != null ? hits : misses).incrementAndGet();
+        return result;
+    }
+
+    public void put(ChunkKey key, ChunkResult result) {
+        Map<ChunkKey, ChunkResult> current = young;
+        current.put(key, result);
+        if (current.size() >= maxEntries / 2) {
+            synchronized (this) {
+                if (young == current) {
+                    old = current;
+                    young = new ConcurrentHashMap<>();
+                }
+            }
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return young.size() + old.size();
+    }
+}
@@ -0,0 +1,256 @@
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.MimeType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// --- CONTENT KINDS ---
+enum ContentKind {
+    SCRIPT, HTML, JSON, BINARY, OTHER;
+
+    public boolean isScannable() {
+        return this == SCRIPT || this == HTML || this == JSON;
+    }
+}
+
+// --- CONTENT CLASSIFIER ---
+// Decides what a response is from the cheapest signal available: Content-Type header,
+// then URL extension, then Burp's inferred MIME type, and finally a sniff of the first
+// few KB of raw bytes. The body is never converted to a String here.
+class ContentClassifier {
+
+    static final int SNIFF_BYTES = 4096;
+
+    private static final String[] SCRIPT_HINTS = {
+            "function", "const ", "let ", "var ", "=>", "import ", "export ", "window.", "webpack", "require("
+    };
+
+    public static ContentKind classify(HttpResponse response, HttpRequest request) {
+        ContentKind kind = fromContentType(response.headerValue("Content-Type"));
+        if (kind != null) return kind;
+
+        kind = fromExtension(request != null ? request.path() : null);
+        if (kind != null) return kind;
+
+        kind = fromMimeType(response.inferredMimeType());
+        if (kind != null) return kind;
+
+        return sniff(response.body());
+    }
+
+    static ContentKind fromContentType(String contentType) {
+        if (contentType == null || contentType.isEmpty()) return null;
+        String type = contentType.toLowerCase();
+
+        if (type.contains("javascript") || type.contains("ecmascript")) return ContentKind.SCRIPT;
+        if (type.contains("html")) return ContentKind.HTML;
+        if (type.contains("json")) return ContentKind.JSON;
+        if (type.startsWith("image/") || type.startsWith("audio/") || type.startsWith("video/")
+                || type.startsWith("font/") || type.contains("octet-stream") || type.contains("pdf")
+                || type.contains("zip") || type.contains("wasm") || type.contains("protobuf")) {
+            return ContentKind.BINARY;
+        }
+        if (type.startsWith("text/css")) return ContentKind.OTHER;
+        return null; // text/plain and friends need a closer look
+    }
+
+    static ContentKind fromExtension(String path) {
+        if (path == null) return null;
+        int end = path.indexOf('?');
+        if (end < 0) end = path.length();
+        int dot = path.lastIndexOf('.', end - 1);
+        int slash = path.lastIndexOf('/', end - 1);
+        if (dot < 0 || dot < slash) return null;
+
+        switch (path.substring(dot + 1, end).toLowerCase()) {
+            case "js": case "mjs": case "cjs": case "jsx":
+                return ContentKind.SCRIPT;
+            case "html": case "htm":
+                return ContentKind.HTML;
+            case "json": case "map":
+                return ContentKind.JSON;
+            case "png": case "jpg": case "jpeg": case "gif": case "webp": case "ico": case "bmp":
+            case "woff": case "woff2": case "ttf": case "otf": case "eot":
+            case "mp3": case "mp4": case "webm": case "pdf": case "zip": case "gz": case "wasm":
+                return ContentKind.BINARY;
+            case "css": case "svg":
+                return ContentKind.OTHER;
+            default:
+                return null;
+        }
+    }
+
+    static ContentKind fromMimeType(MimeType mimeType) {
+        if (mimeType == null) return null;
+        switch (mimeType) {
+            case SCRIPT:
+                return ContentKind.SCRIPT;
+            case HTML:
+                return ContentKind.HTML;
+            case JSON:
+                return ContentKind.JSON;
+            case IMAGE_UNKNOWN: case IMAGE_JPEG: case IMAGE_GIF: case IMAGE_PNG: case IMAGE_BMP: case IMAGE_TIFF:
+            case SOUND: case VIDEO: case APPLICATION_FLASH: case FONT_WOFF: case FONT_WOFF2: case LEGACY_SER_AMF:
+                return ContentKind.BINARY;
+            case CSS: case RTF: case XML: case YAML: case IMAGE_SVG_XML:
+                return ContentKind.OTHER;
+            default:
+                return null; // NONE, UNRECOGNIZED, AMBIGUOUS, PLAIN_TEXT, APPLICATION_UNKNOWN
+        }
+    }
+
+    static ContentKind sniff(ByteArray body) {
+        if (body == null || body.length() == 0) return ContentKind.OTHER;
+        int length = Math.min(body.length(), SNIFF_BYTES);
+        byte[] prefix = length == body.length() ? body.getBytes() : body.subArray(0, length).getBytes();
+
+        // Early rejection: NUL or a high share of control bytes means binary
+        int control = 0;
+        for (byte b : prefix) {
+            if (b == 0) return ContentKind.BINARY;
+            if (b < 0x09 || (b > 0x0D && b < 0x20)) control++;
+        }
+        if (control * 10 > length) return ContentKind.BINARY;
+
+        int i = 0;
+        // Skip UTF-8 BOM and leading whitespace
+        if (length >= 3 && (prefix[0] & 0xFF) == 0xEF && (prefix[1] & 0xFF) == 0xBB && (prefix[2] & 0xFF) == 0xBF) i = 3;
+        while (i < length && prefix[i] <= ' ') i++;
+        if (i >= length) return ContentKind.OTHER;
+
+        String head = new String(prefix, i, length - i, java.nio.charset.StandardCharsets.ISO_8859_1);
+        char first = head.charAt(0);
+        if (first == '<') {
+            String lower = head.toLowerCase();
+            if (lower.startsWith("<!doctype html") || lower.contains("<html") || lower.contains("<script")
+                    || lower.contains("<head") || lower.contains("<body")) {
+                return ContentKind.HTML;
+            }
+            return ContentKind.OTHER;
+        }
+        if (first == '{' || first == '[') {
+            // JSON objects start with a quoted key or close immediately; arrays with a value
+            int j = 1;
+            while (j < head.length() && head.charAt(j) <= ' ') j++;
+            boolean jsonStart = j >= head.length() || (first == '{'
+                    ? head.charAt(j) == '"' || head.charAt(j) == '}'
+                    : isJsonValueStart(head.charAt(j)) || head.charAt(j) == ']');
+            // Bundles such as "[1,2].forEach(...)" or webpack chunk arrays also start this way
+            if (hasScriptToken(head)) return ContentKind.SCRIPT;
+            if (jsonStart) return ContentKind.JSON;
+        }
+        for (String hint : SCRIPT_HINTS) {
+            if (head.contains(hint)) return ContentKind.SCRIPT;
+        }
+        return ContentKind.OTHER;
+    }
+
+    private static boolean isJsonValueStart(char c) {
+        return c == '"' || c == '{' || c == '[' || c == '-' || (c >= '0' && c <= '9') || c == 't' || c == 'f' || c == 'n';
+    }
+
+    // Outside string literals JSON only has punctuation, numbers and true/false/null;
+    // any other word or operator (a call, '=', ';', a property access) means script.
+    static boolean hasScriptToken(String head) {
+        int length = head.length();
+        int i = 0;
+        while (i < length) {
+            char c = head.charAt(i);
+            if (c == '"') {
+                i++;
+                while (i < length && head.charAt(i) != '"') i += head.charAt(i) == '\\' ? 2 : 1;
+                i++;
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(head.charAt(i)) || head.charAt(i) == '_' || head.charAt(i) == '$')) i++;
+                String word = head.substring(start, i);
+                // Exponents ("1e5") are part of a number
+                boolean exponent = start > 0 && Character.isDigit(head.charAt(start - 1)) && (c == 'e' || c == 'E');
+                if (!exponent && !word.equals("true") && !word.equals("false") && !word.equals("null")
+                        && i < length) { // A word cut off by the window end is not conclusive
+                    return true;
+                }
+            } else if (c <= ' ' || c == '{' || c == '}' || c == '[' || c == ']' || c == ',' || c == ':'
+                    || c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+                i++;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+}
+
+// --- LIGHTWEIGHT REGION EXTRACTORS ---
+// Narrow HTML and JSON bodies down to the parts worth running the path regex over.
+// Regions are [start, end) offsets into the original body so match offsets stay global.
+class ContentRegions {
+
+    /** Bodies of inline script blocks. */
+    public static List<int[]> htmlScripts(String html) {
+        List<int[]> regions = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = indexOfIgnoreCase(html, "<script", pos);
+            if (open < 0) break;
+            int tagEnd = html.indexOf('>', open);
+            if (tagEnd < 0) break;
+            int close = indexOfIgnoreCase(html, "</script", tagEnd + 1);
+            if (close < 0) close = html.length();
+            if (close > tagEnd + 1) {
+                regions.add(new int[]{tagEnd + 1, close});
+            }
+            pos = close;
+        }
+        return regions;
+    }
+
+    /** String values (not keys) that could hold a path, quotes included. */
+    public static List<int[]> jsonStrings(String json) {
+        List<int[]> regions = new ArrayList<>();
+        int length = json.length();
+        int i = 0;
+        while (i < length) {
+            if (json.charAt(i) != '"') {
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean hasSlash = false;
+            i++;
+            while (i < length) {
+                char c = json.charAt(i);
+                if (c == '\\') {
+                    i += 2;
+                    continue;
+                }
+                if (c == '"') break;
+                if (c == '/') hasSlash = true;
+                i++;
+            }
+            int end = Math.min(i + 1, length);
+            i = end;
+
+            if (!hasSlash) continue;
+            // A string followed by ':' is an object key
+            int next = end;
+            while (next < length && json.charAt(next) <= ' ') next++;
+            if (next < length && json.charAt(next) == ':') continue;
+            regions.add(new int[]{start, end});
+        }
+        return regions;
+    }
+
+    static int indexOfIgnoreCase(String text, String needle, int from) {
+        int max = text.length() - needle.length();
+        char first = needle.charAt(0);
+        for (int i = Math.max(0, from); i <= max; i++) {
+            if (Character.toLowerCase(text.charAt(i)) == first && text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,349 @@
+import burp.api.montoya.http.message.HttpRequestResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// --- HOST TABLE ---
+final class HostTable {
+    static final HostTable EMPTY = new HostTable(PersistentMap.empty(), HostStats.EMPTY);
+
+    final PersistentMap<Integer, ShadowFinding> findings; // Key: Symbols.PATHS id of the path
+    final HostStats stats;
+
+    HostTable(PersistentMap<Integer, ShadowFinding> findings, HostStats stats) {
+        this.findings = findings;
+        this.stats = stats;
+    }
+}
+
+// --- SOURCE REFERENCE ---
+// The traffic a batch of findings came from, shared by id and counted so it is dropped
+// together with its last finding.
+final class SourceRef {
+    final HttpRequestResponse traffic;
+    final int refs;
+
+    SourceRef(HttpRequestResponse traffic, int refs) {
+        this.traffic = traffic;
+        this.refs = refs;
+    }
+}
+
+// --- FINDING SNAPSHOT ---
+// One immutable, self-consistent view of every finding, its counters and the sources
+// they point at. Taking a snapshot is a single volatile read; iterating it never sees
+// concurrent writes.
+final class FindingSnapshot {
+    static final FindingSnapshot EMPTY = new FindingSnapshot(PersistentMap.empty(), HostStats.EMPTY, PersistentMap.empty());
+
+    final PersistentMap<String, HostTable> hosts; // Key: Host
+    final HostStats global;
+    final PersistentMap<Integer, SourceRef> sources; // Key: Source id
+
+    private FindingSnapshot(PersistentMap<String, HostTable> hosts, HostStats global, PersistentMap<Integer, SourceRef> sources) {
+        this.hosts = hosts;
+        this.global = global;
+        this.sources = sources;
+    }
+
+    /** The traffic behind {@code sourceId}, or null once no finding refers to it. */
+    public HttpRequestResponse source(int sourceId) {
+        SourceRef ref = sources.get(sourceId);
+        return ref != null ? ref.traffic : null;
+    }
+
+    public Iterable<Integer> sourceIds() {
+        return () -> new Iterator<Integer>() {
+            private final Iterator<Map.Entry<Integer, SourceRef>> it = sources.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                return it.next().getKey();
+            }
+        };
+    }
+
+    public ShadowFinding get(String host, String path) {
+        HostTable table = hosts.get(host);
+        if (table == null) return null;
+        int pathId = Symbols.PATHS.find(path); // A path never interned was never found
+        return pathId >= 0 ? table.findings.get(pathId) : null;
+    }
+
+    public HostStats host(String host) {
+        HostTable table = hosts.get(host);
+        return table != null ? table.stats : HostStats.EMPTY;
+    }
+
+    public int size() {
+        return global.total();
+    }
+
+    public int hostCount() {
+        return hosts.size();
+    }
+
+    public Iterable<String> hostNames() {
+        return () -> new Iterator<String>() {
+            private final Iterator<Map.Entry<String, HostTable>> it = hosts.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return it.next().getKey();
+            }
+        };
+    }
+
+    public Iterable<ShadowFinding> findings(String host) {
+        HostTable table = hosts.get(host);
+        return table != null ? table.findings.values() : Collections.emptyList();
+    }
+
+    public Iterable<ShadowFinding> findings() {
+        return () -> new Iterator<ShadowFinding>() {
+            private final Iterator<HostTable> tables = hosts.values().iterator();
+            private Iterator<ShadowFinding> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && tables.hasNext()) {
+                    current = tables.next().findings.values().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public ShadowFinding next() {
+                hasNext();
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Adds or replaces the finding at its host and path. {@code source} is only needed when
+     * the finding points at a source id this snapshot does not know yet.
+     */
+    FindingSnapshot with(ShadowFinding finding, HttpRequestResponse source) {
+        String host = finding.host();
+        HostTable table = hosts.get(host);
+        if (table == null) table = HostTable.EMPTY;
+        ShadowFinding previous = table.findings.get(finding.pathId());
+        if (previous == finding) return this;
+
+        PersistentMap<Integer, SourceRef> updatedSources = sources;
+        if (previous == null || previous.sourceId() != finding.sourceId()) {
+            updatedSources = retain(updatedSources, finding.sourceId(), source);
+            if (previous != null) updatedSources = release(updatedSources, previous.sourceId());
+        }
+
+        HostStats hostStats = previous != null ? table.stats.replaced(previous, finding) : table.stats.plus(finding);
+        HostStats globalStats = previous != null ? global.replaced(previous, finding) : global.plus(finding);
+        HostTable updated = new HostTable(table.findings.put(finding.pathId(), finding), hostStats);
+        return new FindingSnapshot(hosts.put(host, updated), globalStats, updatedSources);
+    }
+
+    FindingSnapshot without(String host, String path) {
+        HostTable table = hosts.get(host);
+        if (table == null) return this;
+        int pathId = Symbols.PATHS.find(path);
+        ShadowFinding previous = pathId >= 0 ? table.findings.get(pathId) : null;
+        if (previous == null) return this;
+
+        PersistentMap<Integer, ShadowFinding> remaining = table.findings.remove(pathId);
+        PersistentMap<String, HostTable> updatedHosts = remaining.isEmpty()
+                ? hosts.remove(host)
+                : hosts.put(host, new HostTable(remaining, table.stats.minus(previous)));
+        return new FindingSnapshot(updatedHosts, global.minus(previous), release(sources, previous.sourceId()));
+    }
+
+    FindingSnapshot withoutHost(String host) {
+        HostTable table = hosts.get(host);
+        if (table == null) return this;
+        PersistentMap<Integer, SourceRef> updatedSources = sources;
+        for (ShadowFinding finding : table.findings.values()) {
+            updatedSources = release(updatedSources, finding.sourceId());
+        }
+        return new FindingSnapshot(hosts.remove(host), global.minus(table.stats), updatedSources);
+    }
+
+    private static PersistentMap<Integer, SourceRef> retain(PersistentMap<Integer, SourceRef> sources, int id, HttpRequestResponse traffic) {
+        SourceRef ref = sources.get(id);
+        if (ref != null) return sources.put(id, new SourceRef(ref.traffic, ref.refs + 1));
+        if (traffic == null) throw new IllegalArgumentException("Unknown source id " + id);
+        return sources.put(id, new SourceRef(traffic, 1));
+    }
+
+    private static PersistentMap<Integer, SourceRef> release(PersistentMap<Integer, SourceRef> sources, int id) {
+        SourceRef ref = sources.get(id);
+        if (ref == null) return sources;
+        return ref.refs <= 1 ? sources.remove(id) : sources.put(id, new SourceRef(ref.traffic, ref.refs - 1));
+    }
+}
+
+// --- FINDING STORE ---
+// Single source of truth for finding state. Writers build a new snapshot and publish it
+// with compare-and-set; readers (save, export, filter, render) just grab the current one.
+// Nobody ever takes a lock, so proxy handler threads never wait on a slow reader.
+class FindingStore {
+
+    private final AtomicReference<FindingSnapshot> current = new AtomicReference<>(FindingSnapshot.EMPTY);
+    private final AtomicInteger nextSourceId = new AtomicInteger();
+    private final AtomicLong publishes = new AtomicLong();
+
+    public FindingSnapshot snapshot() {
+        return current.get();
+    }
+
+    /** How many snapshots have been published so far; a batch should cost exactly one. */
+    public long publishCount() {
+        return publishes.get();
+    }
+
+    private boolean publish(FindingSnapshot expected, FindingSnapshot next) {
+        if (!current.compareAndSet(expected, next)) return false;
+        publishes.incrementAndGet();
+        return true;
+    }
+
+    /** Reserves an id for a new source; it is stored with the first finding that uses it. */
+    public int newSourceId() {
+        return nextSourceId.getAndIncrement();
+    }
+
+    /** Adds the finding unless one already exists for its host and path. */
+    public boolean add(ShadowFinding finding, HttpRequestResponse source) {
+        while (true) {
+            FindingSnapshot snapshot = current.get();
+            if (snapshot.get(finding.host(), finding.path()) != null) return false;
+            if (publish(snapshot, snapshot.with(finding, source))) return true;
+        }
+    }
+
+    /**
+     * Adds every finding that is not already present, with the sources they refer to
+     * (restored sessions keep their ids). Returns how many were added.
+     */
+    public int addAll(Collection<ShadowFinding> findings, Map<Integer, HttpRequestResponse> sources) {
+        for (int id : sources.keySet()) {
+            nextSourceId.accumulateAndGet(id + 1, Math::max);
+        }
+        while (true) {
+            FindingSnapshot snapshot = current.get();
+            FindingSnapshot next = snapshot;
+            int added = 0;
+            for (ShadowFinding finding : findings) {
+                if (next.get(finding.host(), finding.path()) == null) {
+                    next = next.with(finding, sources.get(finding.sourceId()));
+                    added++;
+                }
+            }
+            if (publish(snapshot, next)) return added;
+        }
+    }
+
+    /**
+     * Applies {@code change} to the current version of the finding at host/path.
+     * The change must keep the finding's source. Returns the new version, or null if
+     * the finding is gone or did not change.
+     */
+    public ShadowFinding update(String host, String path, UnaryOperator<ShadowFinding> change) {
+        while (true) {
+            FindingSnapshot snapshot = current.get();
+            ShadowFinding existing = snapshot.get(host, path);
+            if (existing == null) return null;
+            ShadowFinding updated = change.apply(existing);
+            if (updated == existing) return null;
+            if (publish(snapshot, snapshot.with(updated, null))) return updated;
+        }
+    }
+
+    /**
+     * Points a finding that has no response yet at {@code traffic}. Returns the new
+     * version, or null if the finding is gone or already has a response.
+     */
+    public ShadowFinding attachResponse(String host, String path, HttpRequestResponse traffic) {
+        int sourceId = -1;
+        while (true) {
+            FindingSnapshot snapshot = current.get();
+            ShadowFinding existing = snapshot.get(host, path);
+            if (existing == null || existing.hasResponse()) return null;
+            if (sourceId < 0) sourceId = newSourceId();
+            ShadowFinding updated = existing.withSource(sourceId, true);
+            if (publish(snapshot, snapshot.with(updated, traffic))) return updated;
+        }
+    }
+
+    /** Batched {@link #update}: one publish for the whole batch. Returns the versions that changed. */
+    public List<ShadowFinding> updateAll(Collection<ShadowFinding> targets, UnaryOperator<ShadowFinding> change) {
+        while (true) {
+            FindingSnapshot snapshot = current.get();
+            FindingSnapshot next = snapshot;
+            List<ShadowFinding> changed = new ArrayList<>();
+            for (ShadowFinding target : targets) {
+                ShadowFinding existing = next.get(target.host(), target.path());
+                if (existing == null) continue;
+                ShadowFinding updated = change.apply(existing);
+                if (updated == existing) continue;
+                next = next.with(updated, null);
+                changed.add(updated);
+            }
+            if (next == snapshot || publish(snapshot, next)) return changed;
+        }
+    }
+
+    /** Removes the given findings in one publish. Returns the versions that were removed. */
+    public List<ShadowFinding> removeAll(Collection<ShadowFinding> targets) {
+        while (true) {
+            FindingSnapshot snapshot = current.get();
+            FindingSnapshot next = snapshot;
+            List<ShadowFinding> removed = new ArrayList<>();
+            for (ShadowFinding target : targets) {
+                ShadowFinding existing = next.get(target.host(), target.path());
+                if (existing == null) continue;
+                next = next.without(target.host(), target.path());
+                removed.add(existing);
+            }
+            if (next == snapshot || publish(snapshot, next)) return removed;
+        }
+    }
+
+    /** Removes whole hosts in one publish. Returns the findings that were removed. */
+    public List<ShadowFinding> removeHosts(Collection<String> hostNames) {
+        while (true) {
+            FindingSnapshot snapshot = current.get();
+            FindingSnapshot next = snapshot;
+            List<ShadowFinding> removed = new ArrayList<>();
+            for (String host : hostNames) {
+                for (ShadowFinding finding : next.findings(host)) {
+                    removed.add(finding);
+                }
+                next = next.withoutHost(host);
+            }
+            if (next == snapshot || publish(snapshot, next)) return removed;
+        }
+    }
+
+    public void clear() {
+        current.set(FindingSnapshot.EMPTY);
+        publishes.incrementAndGet();
+    }
+}
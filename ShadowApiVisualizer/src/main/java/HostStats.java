@@ -0,0 +1,96 @@
+import java.util.Map;
+import java.util.TreeMap;
+
+// --- FINDING STATUS ---
+enum FindingStatus {
+    UNTESTED("Untested"),
+    TESTED("Tested"),
+    VERIFIED("Verified");
+
+    public final String label;
+
+    FindingStatus(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
+
+// --- PER-HOST COUNTERS ---
+// Immutable; every snapshot carries its own counters, so they always agree with the
+// findings they describe.
+final class HostStats {
+    static final HostStats EMPTY = new HostStats(new int[FindingStatus.values().length], PersistentMap.empty());
+
+    private final int[] byStatus;
+    private final PersistentMap<String, Integer> byMethod;
+
+    private HostStats(int[] byStatus, PersistentMap<String, Integer> byMethod) {
+        this.byStatus = byStatus;
+        this.byMethod = byMethod;
+    }
+
+    public int count(FindingStatus status) {
+        return byStatus[status.ordinal()];
+    }
+
+    public int total() {
+        int total = 0;
+        for (int count : byStatus) total += count;
+        return total;
+    }
+
+    /** Non-zero method counts, sorted by method name. */
+    public Map<String, Integer> byMethod() {
+        Map<String, Integer> sorted = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : byMethod) {
+            if (entry.getValue() > 0) sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    HostStats plus(ShadowFinding finding) {
+        return adjust(finding.status(), finding.method(), 1);
+    }
+
+    HostStats minus(ShadowFinding finding) {
+        return adjust(finding.status(), finding.method(), -1);
+    }
+
+    /** Accounts for a finding being replaced by a newer version of itself. */
+    HostStats replaced(ShadowFinding before, ShadowFinding after) {
+        if (before.status() == after.status() && before.methodCode() == after.methodCode()) return this;
+        return minus(before).plus(after);
+    }
+
+    HostStats minus(HostStats other) {
+        int[] counts = byStatus.clone();
+        for (int i = 0; i < counts.length; i++) counts[i] -= other.byStatus[i];
+        PersistentMap<String, Integer> methods = byMethod;
+        for (Map.Entry<String, Integer> entry : other.byMethod) {
+            methods = methods.put(entry.getKey(), methodCount(methods, entry.getKey()) - entry.getValue());
+        }
+        return new HostStats(counts, methods);
+    }
+
+    private HostStats adjust(FindingStatus status, String method, int delta) {
+        int[] counts = byStatus.clone();
+        counts[status.ordinal()] += delta;
+        String key = method != null ? method : "?";
+        return new HostStats(counts, byMethod.put(key, methodCount(byMethod, key) + delta));
+    }
+
+    private static int methodCount(PersistentMap<String, Integer> methods, String key) {
+        Integer count = methods.get(key);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public String toString() {
+        return count(FindingStatus.UNTESTED) + " untested · " + count(FindingStatus.TESTED) + " tested · "
+                + count(FindingStatus.VERIFIED) + " verified";
+    }
+}
@@ -0,0 +1,266 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// --- MATCH RESULT ---
+class PathMatch {
+    public final String path;
+    public final int start;
+    public final int end;
+    public final int group; // Capture group that produced the path (0 for the whole match)
+    public final String method; // Null when the caller should infer it from the surrounding code
+
+    public PathMatch(String path, int start, int end) {
+        this(path, start, end, 0, null);
+    }
+
+    public PathMatch(String path, int start, int end, String method) {
+        this(path, start, end, 0, method);
+    }
+
+    public PathMatch(String path, int start, int end, int group, String method) {
+        this.path = path;
+        this.start = start;
+        this.end = end;
+        this.group = group;
+        this.method = method;
+    }
+
+    /** First non-null capture group, or the whole match when the pattern has none. */
+    static String foundPath(Matcher matcher) {
+        return matcher.group(foundGroup(matcher));
+    }
+
+    /** Index of the group {@link #foundPath} returns; tells which alternative matched. */
+    static int foundGroup(Matcher matcher) {
+        for (int i = 1; i <= matcher.groupCount(); i++) {
+            if (matcher.group(i) != null) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
+
+// --- PATH SCANNER ---
+// Runs the combined pattern over a region of a body. Large regions are split into
+// segments cut at statement boundaries, scanned on a ForkJoinPool, and merged back
+// into the same ordered, de-duplicated list a single-threaded scan would produce.
+class PathScanner {
+
+    // Extra context each segment may read past its end so boundary-straddling matches complete
+    static final int OVERLAP = 1024;
+    static final int MIN_SEGMENT = 64 * 1024;
+    // How far to look for a statement boundary before falling back to the raw cut
+    private static final int BOUNDARY_SEARCH = 4096;
+
+    private final ForkJoinPool pool;
+
+    public PathScanner(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public List<PathMatch> scanSerial(Pattern pattern, String body, int from, int to) {
+        List<PathMatch> matches = new ArrayList<>();
+        Matcher matcher = pattern.matcher(body);
+        matcher.region(from, to);
+        while (matcher.find()) {
+            int group = PathMatch.foundGroup(matcher);
+            String found = matcher.group(group);
+            if (found != null && !found.isEmpty()) {
+                matches.add(new PathMatch(found, matcher.start(), matcher.end(), group, null));
+            }
+        }
+        return dedupe(matches);
+    }
+
+    public List<PathMatch> scanParallel(Pattern pattern, String body, int from, int to) {
+        int segmentSize = Math.max(MIN_SEGMENT, (to - from) / (pool.getParallelism() * 4));
+        List<PathMatch> merged = pool.invoke(new SegmentTask(pattern, body, from, to, to, segmentSize));
+        return dedupe(merged);
+    }
+
+    /**
+     * Scans the region chunk by chunk (see {@link ContentChunker}), reusing cached results
+     * for chunks seen before in any response. Produces the same list as
+     * {@link #scanParallel}; with {@code parallel} the chunks that miss are scanned on the pool.
+     */
+    public List<PathMatch> scanIncremental(Pattern pattern, String body, int from, int to, ChunkCache cache, boolean parallel) {
+        cache.bind(pattern);
+        int[] cuts = ContentChunker.boundaries(body, from, to);
+        int chunks = cuts.length - 1;
+        ChunkKey[] keys = new ChunkKey[chunks];
+        ChunkResult[] results = new ChunkResult[chunks];
+
+        List<ForkJoinTask<?>> missed = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            // The key covers the look-ahead window too, so a cached result never depends on unseen text
+            int readEnd = Math.min(to, cuts[i + 1] + OVERLAP);
+            keys[i] = ChunkKey.of(body, cuts[i], readEnd, readEnd == to);
+            results[i] = cache.get(pattern, keys[i]);
+            if (results[i] == null) {
+                final int chunk = i;
+                missed.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        results[chunk] = scanChunk(pattern, body, cuts[chunk], cuts[chunk + 1], to, cache, keys[chunk]);
+                    }
+                });
+            }
+        }
+
+        if (parallel && missed.size() > 1) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(missed);
+                }
+            });
+        } else {
+            for (ForkJoinTask<?> task : missed) task.invoke();
+        }
+
+        List<PathMatch> merged = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            ChunkResult result = results[i];
+            for (int m = 0; m < result.paths.length; m++) {
+                merged.add(new PathMatch(result.paths[m], cuts[i] + result.starts[m], cuts[i] + result.ends[m], result.groups[m], null));
+            }
+        }
+        return dedupe(merged);
+    }
+
+    private static ChunkResult scanChunk(Pattern pattern, String body, int from, int to, int limit, ChunkCache cache, ChunkKey key) {
+        List<PathMatch> matches = new ArrayList<>();
+        boolean selfContained = scanOwned(pattern, body, from, to, limit, matches);
+        String[] paths = new String[matches.size()];
+        int[] starts = new int[matches.size()];
+        int[] ends = new int[matches.size()];
+        int[] groups = new int[matches.size()];
+        for (int i = 0; i < paths.length; i++) {
+            PathMatch match = matches.get(i);
+            paths[i] = match.path;
+            starts[i] = match.start - from;
+            ends[i] = match.end - from;
+            groups[i] = match.group;
+        }
+        ChunkResult result = new ChunkResult(pattern, paths, starts, ends, groups);
+        // A match that ran past the look-ahead window depends on text the key does not cover
+        if (selfContained) cache.put(key, result);
+        return result;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Drop matches that overlap an earlier one (as a sequential find() would never
+    // produce them) and repeated paths, keeping the first occurrence.
+    private static List<PathMatch> dedupe(List<PathMatch> ordered) {
+        List<PathMatch> result = new ArrayList<>(ordered.size());
+        Set<String> seen = new HashSet<>();
+        int lastEnd = -1;
+        for (PathMatch match : ordered) {
+            if (match.start < lastEnd) continue;
+            lastEnd = match.end;
+            if (seen.add(match.path)) {
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    // Returns the first position after a ';' or newline at or beyond 'nominal', or 'nominal' itself.
+    static int alignToBoundary(String body, int nominal, int limit) {
+        int max = Math.min(limit, nominal + BOUNDARY_SEARCH);
+        for (int i = nominal; i < max; i++) {
+            char c = body.charAt(i);
+            if (c == ';' || c == '\n') return i + 1;
+        }
+        return nominal;
+    }
+
+    private static class SegmentTask extends RecursiveTask<List<PathMatch>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Pattern pattern;
+        private final String body;
+        private final int from;
+        private final int to;
+        private final int limit; // end of the whole scanned region
+        private final int segmentSize;
+
+        SegmentTask(Pattern pattern, String body, int from, int to, int limit, int segmentSize) {
+            this.pattern = pattern;
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.limit = limit;
+            this.segmentSize = segmentSize;
+        }
+
+        @Override
+        protected List<PathMatch> compute() {
+            if (to - from > segmentSize) {
+                int mid = alignToBoundary(body, from + (to - from) / 2, to);
+                if (mid > from && mid < to) {
+                    SegmentTask left = new SegmentTask(pattern, body, from, mid, limit, segmentSize);
+                    SegmentTask right = new SegmentTask(pattern, body, mid, to, limit, segmentSize);
+                    right.fork();
+                    List<PathMatch> result = left.compute();
+                    result.addAll(right.join());
+                    return result;
+                }
+            }
+            List<PathMatch> matches = new ArrayList<>();
+            scanOwned(pattern, body, from, to, limit, matches);
+            return matches;
+        }
+    }
+
+    // Adds every match that starts inside [from, to); may read up to OVERLAP past 'to'.
+    // Returns false if a match had to be completed beyond that window.
+    private static boolean scanOwned(Pattern pattern, String body, int from, int to, int limit, List<PathMatch> matches) {
+        boolean selfContained = true;
+        int readEnd = Math.min(limit, to + OVERLAP);
+        Matcher matcher = pattern.matcher(body);
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        matcher.region(from, readEnd);
+
+        while (matcher.find()) {
+            int start = matcher.start();
+            if (start >= to) break;
+
+            String found;
+            int group;
+            int end = matcher.end();
+            if (end == readEnd && readEnd < limit) {
+                // Cut short by the overlap window: re-match from the same start without it
+                selfContained = false;
+                Matcher full = pattern.matcher(body);
+                full.useTransparentBounds(true);
+                full.useAnchoringBounds(false);
+                full.region(start, limit);
+                if (!full.lookingAt()) continue;
+                group = PathMatch.foundGroup(full);
+                found = full.group(group);
+                end = full.end();
+            } else {
+                group = PathMatch.foundGroup(matcher);
+                found = matcher.group(group);
+            }
+            if (found != null && !found.isEmpty()) {
+                matches.add(new PathMatch(found, start, end, group, null));
+            }
+        }
+        return selfContained;
+    }
+}
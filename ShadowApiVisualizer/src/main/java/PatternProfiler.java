@@ -0,0 +1,365 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// --- PATTERN SET ---
+// The user's patterns compiled into one alternation, plus which pattern owns each
+// capture group, so a match can be traced back to the line that produced it. Patterns
+// without a group are wrapped in one; foundPath() still returns the same text. The
+// alternatives may be tried in another order than the list, but rules, singles and
+// ruleOfGroup always index the list, so attribution does not depend on the order.
+final class PatternSet {
+
+    final Pattern pattern;
+    final String[] rules; // In list order
+    final Pattern[] singles; // Each rule on its own, for cost sampling
+    private final int[] ruleOfGroup; // Index into rules, -1 for group 0
+
+    private PatternSet(Pattern pattern, String[] rules, Pattern[] singles, int[] ruleOfGroup) {
+        this.pattern = pattern;
+        this.rules = rules;
+        this.singles = singles;
+        this.ruleOfGroup = ruleOfGroup;
+    }
+
+    /** Compiles {@code rules} in list order; throws if any rule is invalid on its own. */
+    static PatternSet compile(List<String> rules) {
+        return compile(rules, null);
+    }
+
+    /**
+     * Compiles {@code rules} with the alternatives tried in {@code order}, a permutation of
+     * their indices (null for list order); throws if any rule is invalid on its own.
+     */
+    static PatternSet compile(List<String> rules, int[] order) {
+        if (rules.isEmpty()) throw new PatternSyntaxException("No patterns", "", -1);
+        if (order != null && order.length != rules.size()) {
+            throw new IllegalArgumentException("Order has " + order.length + " entries for " + rules.size() + " rules");
+        }
+        Pattern[] singles = new Pattern[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            singles[i] = Pattern.compile(rules.get(i), Pattern.CASE_INSENSITIVE);
+        }
+        List<String> parts = new ArrayList<>(rules.size());
+        List<Integer> owners = new ArrayList<>();
+        owners.add(-1);
+        for (int k = 0; k < rules.size(); k++) {
+            int i = order != null ? order[k] : k;
+            int groups = singles[i].matcher("").groupCount();
+            parts.add(groups == 0 ? "(" + rules.get(i) + ")" : rules.get(i));
+            for (int g = 0; g < Math.max(1, groups); g++) owners.add(i);
+        }
+        int[] ruleOfGroup = new int[owners.size()];
+        for (int g = 0; g < ruleOfGroup.length; g++) ruleOfGroup[g] = owners.get(g);
+        // Optimization: Case Insensitive
+        Pattern combined = Pattern.compile(String.join("|", parts), Pattern.CASE_INSENSITIVE);
+        return new PatternSet(combined, rules.toArray(new String[0]), singles, ruleOfGroup);
+    }
+
+    /** Index of the rule that owns {@code group}, or -1. */
+    int ruleOf(int group) {
+        return group > 0 && group < ruleOfGroup.length ? ruleOfGroup[group] : -1;
+    }
+
+    /** Text of the rule that owns {@code group}, or null. */
+    String rule(int group) {
+        int rule = ruleOf(group);
+        return rule < 0 ? null : rules[rule];
+    }
+}
+
+// --- RULE STATS ---
+final class RuleStats {
+    final String rule;
+    final LongAdder matches = new LongAdder();
+    final LongAdder findings = new LongAdder(); // New findings attributed to the rule
+    final LongAdder deleted = new LongAdder(); // ...that the user later deleted
+    final AtomicLong sampledNanos = new AtomicLong();
+    final AtomicLong sampledChars = new AtomicLong();
+
+    RuleStats(String rule) {
+        this.rule = rule;
+    }
+
+    /** Share of attributed findings the user deleted, or -1 before the first finding. */
+    double falsePositiveRate() {
+        long found = findings.sum();
+        return found == 0 ? -1 : Math.min(1.0, deleted.sum() / (double) found);
+    }
+
+    /** Sampled scan time of the rule alone, per 100 KB of text; -1 before the first sample. */
+    double microsPer100Kb() {
+        long chars = sampledChars.get();
+        return chars == 0 ? -1 : sampledNanos.get() / 1000.0 * (100 * 1024) / chars;
+    }
+}
+
+// --- PATTERN PROFILER ---
+// The combined alternation runs as one regex, so per-rule numbers are gathered on the
+// side: matches and findings from the capture group each match came from, deletions
+// from the finding's recorded rule, and cost by timing each rule alone over a sample of
+// every SAMPLE_EVERY-th scanned body on a background thread (dropped when it is busy).
+class PatternProfiler {
+
+    static final int SAMPLE_EVERY = 32;
+    static final int SAMPLE_CHARS = 64 * 1024;
+
+    private final Map<String, RuleStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ThreadPoolExecutor sampler;
+    private volatile Binding binding; // Stats for the rules of the last set seen
+
+    public PatternProfiler() {
+        sampler = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), r -> {
+            Thread thread = new Thread(r, "shadow-pattern-sampler");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public RuleStats stats(String rule) {
+        return stats.computeIfAbsent(rule, RuleStats::new);
+    }
+
+    /** Counts each match against the rule that produced it. */
+    public void recordMatches(PatternSet set, List<PathMatch> matches) {
+        RuleStats[] bound = bind(set);
+        for (PathMatch match : matches) {
+            int rule = set.ruleOf(match.group);
+            if (rule >= 0) bound[rule].matches.increment();
+        }
+        if (!matches.isEmpty()) dirty.set(true);
+    }
+
+    public void recordFinding(String rule) {
+        if (rule == null) return;
+        stats(rule).findings.increment();
+        dirty.set(true);
+    }
+
+    public void recordDeleted(String rule) {
+        if (rule == null) return;
+        stats(rule).deleted.increment();
+        dirty.set(true);
+    }
+
+    /** Occasionally times each rule alone over the start of {@code body}. */
+    public void maybeSample(PatternSet set, String body) {
+        if (scans.incrementAndGet() % SAMPLE_EVERY != 0 || sampler.getQueue().remainingCapacity() == 0) return;
+        String sample = body.length() > SAMPLE_CHARS ? body.substring(0, SAMPLE_CHARS) : body;
+        RuleStats[] bound = bind(set);
+        sampler.execute(() -> {
+            for (int i = 0; i < set.singles.length; i++) {
+                Matcher matcher = set.singles[i].matcher(sample);
+                long start = System.nanoTime();
+                while (matcher.find()) {
+                    // Only the time spent matching matters
+                }
+                bound[i].sampledNanos.addAndGet(System.nanoTime() - start);
+                bound[i].sampledChars.addAndGet(sample.length());
+            }
+            dirty.set(true);
+        });
+    }
+
+    /** Indices of {@code rules}, most matched first; ties keep their list order. */
+    public int[] hotFirst(List<String> rules) {
+        long[] matches = new long[rules.size()];
+        List<Integer> order = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            matches[i] = stats(rules.get(i)).matches.sum();
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> -matches[i]));
+        int[] indices = new int[order.size()];
+        for (int k = 0; k < indices.length; k++) indices[k] = order.get(k);
+        return indices;
+    }
+
+    /** Clears the dirty flag; true if anything was recorded since the last call. */
+    public boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    public void reset() {
+        stats.clear();
+        binding = null;
+        dirty.set(true);
+    }
+
+    public void shutdown() {
+        sampler.shutdownNow();
+    }
+
+    // Resolves the set's rules to stats objects once per set rather than per match
+    private RuleStats[] bind(PatternSet set) {
+        Binding current = binding;
+        if (current == null || current.set != set) {
+            RuleStats[] bound = new RuleStats[set.rules.length];
+            for (int i = 0; i < bound.length; i++) bound[i] = stats(set.rules[i]);
+            current = new Binding(set, bound);
+            binding = current;
+        }
+        return current.stats;
+    }
+
+    private static final class Binding {
+        final PatternSet set;
+        final RuleStats[] stats;
+
+        Binding(PatternSet set, RuleStats[] stats) {
+            this.set = set;
+            this.stats = stats;
+        }
+    }
+
+    /** Short, stable key for a rule, stored with each finding instead of the pattern text. */
+    static String ruleKey(String rule) {
+        return Integer.toHexString(rule.hashCode());
+    }
+
+    /** The known rule with this key, or null. */
+    public String resolveKey(String key, List<String> current) {
+        if (key == null) return null;
+        for (String rule : current) {
+            if (ruleKey(rule).equals(key)) return rule;
+        }
+        for (String rule : stats.keySet()) {
+            if (ruleKey(rule).equals(key)) return rule;
+        }
+        return null;
+    }
+
+    public List<PatternStatsDTO> toDtos() {
+        List<PatternStatsDTO> dtos = new ArrayList<>(stats.size());
+        for (RuleStats rule : stats.values()) dtos.add(new PatternStatsDTO(rule));
+        return dtos;
+    }
+
+    public void restore(List<PatternStatsDTO> dtos) {
+        for (PatternStatsDTO dto : dtos) {
+            if (dto.rule == null) continue;
+            RuleStats rule = stats(dto.rule);
+            rule.matches.add(dto.matches);
+            rule.findings.add(dto.findings);
+            rule.deleted.add(dto.deleted);
+            rule.sampledNanos.addAndGet(dto.sampledNanos);
+            rule.sampledChars.addAndGet(dto.sampledChars);
+        }
+    }
+}
+
+class PatternStatsDTO {
+    public String rule;
+    public long matches;
+    public long findings;
+    public long deleted;
+    public long sampledNanos;
+    public long sampledChars;
+
+    public PatternStatsDTO(RuleStats stats) {
+        this.rule = stats.rule;
+        this.matches = stats.matches.sum();
+        this.findings = stats.findings.sum();
+        this.deleted = stats.deleted.sum();
+        this.sampledNanos = stats.sampledNanos.get();
+        this.sampledChars = stats.sampledChars.get();
+    }
+}
+
+// --- PROFILE TABLE MODEL ---
+// Rows for the current pattern list under one of the rankings; refreshed on demand
+// from the Settings tab rather than on every match.
+class PatternProfileTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    static final String[] RANKINGS = {"Most Matches", "Never Matched", "Most Expensive", "Most Deleted"};
+    private static final String[] COLUMNS = {"Pattern", "Matches", "Findings", "Deleted", "FP Rate", "µs / 100 KB"};
+
+    private final PatternProfiler profiler;
+    private List<RuleStats> rows = new ArrayList<>();
+
+    PatternProfileTableModel(PatternProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /** Rebuilds the rows for {@code rules} under the given ranking. */
+    void refresh(List<String> rules, String ranking) {
+        List<RuleStats> next = new ArrayList<>();
+        for (String rule : rules) {
+            RuleStats stats = profiler.stats(rule);
+            if (!"Never Matched".equals(ranking) || stats.matches.sum() == 0) next.add(stats);
+        }
+        switch (ranking) {
+            case "Most Expensive":
+                next.sort(Comparator.comparingDouble((RuleStats s) -> -s.microsPer100Kb()));
+                break;
+            case "Most Deleted":
+                next.sort(Comparator.comparingDouble((RuleStats s) -> -s.falsePositiveRate())
+                        .thenComparingLong(s -> -s.deleted.sum()));
+                break;
+            case "Never Matched":
+                break; // Keep list order
+            default:
+                next.sort(Comparator.comparingLong((RuleStats s) -> -s.matches.sum()));
+                break;
+        }
+        rows = next;
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? String.class : Object.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        RuleStats stats = rows.get(row);
+        switch (column) {
+            case 0:
+                return stats.rule;
+            case 1:
+                return stats.matches.sum();
+            case 2:
+                return stats.findings.sum();
+            case 3:
+                return stats.deleted.sum();
+            case 4:
+                double rate = stats.falsePositiveRate();
+                return rate < 0 ? "-" : String.format("%.0f%%", rate * 100);
+            default:
+                double cost = stats.microsPer100Kb();
+                return cost < 0 ? "-" : String.format("%.0f", cost);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// --- PERSISTENT MAP ---
+// Immutable hash array mapped trie. put/remove return a new map that shares every
+// untouched branch with the old one, so publishing a change costs O(log32 n) and any
+// previously handed-out instance stays a valid, consistent snapshot forever.
+final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (root == null) return null;
+        Leaf leaf = root.find(0, hash(key), key);
+        return leaf != null ? (V) leaf.value : null;
+    }
+
+    public boolean containsKey(K key) {
+        return root != null && root.find(0, hash(key), key) != null;
+    }
+
+    public PersistentMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node base = root != null ? root : BitmapNode.EMPTY;
+        Node updated = base.put(0, hash(key), key, value, added);
+        if (updated == root) return this;
+        return new PersistentMap<>(updated, added[0] ? size + 1 : size);
+    }
+
+    public PersistentMap<K, V> remove(K key) {
+        if (root == null) return this;
+        Node updated = root.remove(0, hash(key), key);
+        if (updated == root) return this;
+        return updated == null ? empty() : new PersistentMap<>(updated, size - 1);
+    }
+
+    public Iterable<V> values() {
+        return () -> new Iterator<V>() {
+            private final Iterator<Map.Entry<K, V>> entries = iterator();
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return entries.next().getValue();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // --- TRIE NODES ---
+
+    private interface Node {
+        Leaf find(int shift, int hash, Object key);
+
+        Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /** Returns null when the node becomes empty. */
+        Node remove(int shift, int hash, Object key);
+    }
+
+    private static final class Leaf implements Node {
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Leaf find(int shift, int hash, Object key) {
+            return this.hash == hash && this.key.equals(key) ? this : null;
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (this.hash == hash && this.key.equals(key)) {
+                return this.value == value ? this : new Leaf(hash, key, value);
+            }
+            added[0] = true;
+            return merge(shift, this, new Leaf(hash, key, value));
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            return this.hash == hash && this.key.equals(key) ? null : this;
+        }
+    }
+
+    private static Node merge(int shift, Leaf a, Leaf b) {
+        if (a.hash == b.hash) {
+            return new CollisionNode(a.hash, new Leaf[]{a, b});
+        }
+        int bitA = bit(a.hash, shift);
+        int bitB = bit(b.hash, shift);
+        if (bitA == bitB) {
+            return new BitmapNode(bitA, new Node[]{merge(shift + 5, a, b)});
+        }
+        return Integer.compareUnsigned(bitA, bitB) < 0
+                ? new BitmapNode(bitA | bitB, new Node[]{a, b})
+                : new BitmapNode(bitA | bitB, new Node[]{b, a});
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Node[0]);
+
+        final int bitmap;
+        final Node[] children;
+
+        BitmapNode(int bitmap, Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Leaf find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+            return children[index(bit)].find(shift + 5, hash, key);
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                Node[] copy = new Node[children.length + 1];
+                System.arraycopy(children, 0, copy, 0, idx);
+                copy[idx] = new Leaf(hash, key, value);
+                System.arraycopy(children, idx, copy, idx + 1, children.length - idx);
+                return new BitmapNode(bitmap | bit, copy);
+            }
+            Node child = children[idx];
+            Node updated = child.put(shift + 5, hash, key, value, added);
+            if (updated == child) return this;
+            Node[] copy = children.clone();
+            copy[idx] = updated;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+            int idx = index(bit);
+            Node child = children[idx];
+            Node updated = child.remove(shift + 5, hash, key);
+            if (updated == child) return this;
+
+            if (updated == null) {
+                if (children.length == 1) return null;
+                Node[] copy = new Node[children.length - 1];
+                System.arraycopy(children, 0, copy, 0, idx);
+                System.arraycopy(children, idx + 1, copy, idx, children.length - idx - 1);
+                // Collapse a lone leaf into the parent to keep paths short
+                if (copy.length == 1 && copy[0] instanceof Leaf && shift > 0) return copy[0];
+                return new BitmapNode(bitmap & ~bit, copy);
+            }
+            if (children.length == 1 && updated instanceof Leaf && shift > 0) return updated;
+            Node[] copy = children.clone();
+            copy[idx] = updated;
+            return new BitmapNode(bitmap, copy);
+        }
+    }
+
+    private static final class CollisionNode implements Node {
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        public Leaf find(int shift, int hash, Object key) {
+            if (this.hash != hash) return null;
+            for (Leaf leaf : leaves) {
+                if (leaf.key.equals(key)) return leaf;
+            }
+            return null;
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (this.hash != hash) {
+                added[0] = true;
+                // Push the collision bucket one level down next to the new leaf
+                BitmapNode wrapper = new BitmapNode(bit(this.hash, shift), new Node[]{this});
+                return wrapper.put(shift, hash, key, value, new boolean[1]);
+            }
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) {
+                    if (leaves[i].value == value) return this;
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = new Leaf(hash, key, value);
+                    return new CollisionNode(hash, copy);
+                }
+            }
+            added[0] = true;
+            Leaf[] copy = new Leaf[leaves.length + 1];
+            System.arraycopy(leaves, 0, copy, 0, leaves.length);
+            copy[leaves.length] = new Leaf(hash, key, value);
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            if (this.hash != hash) return this;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) {
+                    if (leaves.length == 2) return leaves[1 - i];
+                    Leaf[] copy = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, copy, 0, i);
+                    System.arraycopy(leaves, i + 1, copy, i, leaves.length - i - 1);
+                    return new CollisionNode(hash, copy);
+                }
+            }
+            return this;
+        }
+    }
+
+    // Depth-first walk with an explicit stack; never copies the trie
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object[]> stack = new ArrayDeque<>(); // {Node[] children, int[] cursor}
+        private Leaf next;
+
+        EntryIterator(Node root) {
+            if (root != null) push(root);
+            advance();
+        }
+
+        private void push(Node node) {
+            if (node instanceof Leaf) {
+                stack.push(new Object[]{new Node[]{node}, new int[1]});
+            } else if (node instanceof BitmapNode) {
+                stack.push(new Object[]{((BitmapNode) node).children, new int[1]});
+            } else {
+                stack.push(new Object[]{((CollisionNode) node).leaves, new int[1]});
+            }
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Object[] frame = stack.peek();
+                Node[] nodes = (Node[]) frame[0];
+                int[] cursor = (int[]) frame[1];
+                if (cursor[0] >= nodes.length) {
+                    stack.pop();
+                    continue;
+                }
+                Node node = nodes[cursor[0]++];
+                if (node instanceof Leaf) {
+                    next = (Leaf) node;
+                    return;
+                }
+                push(node);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>((K) next.key, (V) next.value);
+            advance();
+            return entry;
+        }
+    }
+}
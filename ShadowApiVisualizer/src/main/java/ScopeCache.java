@@ -0,0 +1,71 @@
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.scope.Scope;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// --- SCOPE DECISION CACHE ---
+// Remembers Burp's scope verdict per service + exact path so the scopeOnly hot path
+// skips both the URL build and the Montoya call on repeat traffic (the same bundles,
+// the same API calls). Keys never cover more than one file, so scope rules that single
+// out a file are honoured; the cache is dropped on every scope change.
+class ScopeCache {
+
+    private final Scope scope;
+    private final int maxEntries;
+
+    // Two generations give a cheap, lock-free approximation of LRU: hits in the old
+    // generation are promoted, and when the young one fills up the old one is dropped.
+    private volatile Map<String, Boolean> young = new ConcurrentHashMap<>();
+    private volatile Map<String, Boolean> old = new ConcurrentHashMap<>();
+
+    public ScopeCache(Scope scope, int maxEntries) {
+        this.scope = scope;
+        this.maxEntries = Math.max(2, maxEntries);
+    }
+
+    public boolean isInScope(HttpRequest request) {
+        String key = keyFor(request.httpService(), request.path());
+
+        Boolean cached = young.get(key);
+        if (cached != null) return cached;
+
+        cached = old.get(key);
+        if (cached == null) {
+            cached = scope.isInScope(request.url());
+        }
+        remember(key, cached);
+        return cached;
+    }
+
+    public void invalidate() {
+        young = new ConcurrentHashMap<>();
+        old = new ConcurrentHashMap<>();
+    }
+
+    public int size() {
+        return young.size() + old.size();
+    }
+
+    private void remember(String key, Boolean inScope) {
+        Map<String, Boolean> current = young;
+        current.put(key, inScope);
+        if (current.size() >= maxEntries / 2) {
+            synchronized (this) {
+                if (young == current) {
+                    old = current;
+                    young = new ConcurrentHashMap<>();
+                }
+            }
+        }
+    }
+
+    static String keyFor(HttpService service, String path) {
+        // Exact path; only the query string is dropped (cache busters would defeat the cache)
+        int end = path.indexOf('?');
+        if (end < 0) end = path.length();
+
+        return (service.secure() ? "s:" : "p:") + service.host() + ":" + service.port() + path.substring(0, end);
+    }
+}
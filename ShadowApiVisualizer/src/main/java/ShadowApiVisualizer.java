@@ -7,6 +7,7 @@ import burp.api.montoya.http.message.HttpRequestResponse;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import burp.api.montoya.logging.Logging;
+import burp.api.montoya.persistence.PersistedObject;
 import burp.api.montoya.scanner.audit.issues.AuditIssue;
 import burp.api.montoya.scanner.audit.issues.AuditIssueConfidence;
 import burp.api.montoya.scanner.audit.issues.AuditIssueSeverity;
@@ -28,30 +29,52 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class ShadowApiVisualizer implements BurpExtension {
 
     private MontoyaApi api;
     private ShadowSettings settings;
-    private Map<String, DefaultMutableTreeNode> nodeMap; // Key: Host + ":" + Path
-    private Map<String, DefaultMutableTreeNode> hostNodeMap; // Key: Host
+    private FindingStore store; // Source of truth; read via lock-free snapshots
+    private Map<String, DefaultMutableTreeNode> nodeMap; // Key: Host + ":" + Path (EDT only)
+    private Map<String, DefaultMutableTreeNode> hostNodeMap; // Key: Host (EDT only)
     private DefaultTreeModel treeModel;
     private DefaultMutableTreeNode root;
     private JTree apiTree;
     private String filterText = "";
     private String statusFilterValue = "All";
     private JLabel statusLabel;
+    private JLabel summaryLabel;
+    private Timer summaryTimer;
+    private HostStats summaryStats; // Global counters last shown in the summary bar
+    private Set<String> ignoredKeys; // Deleted endpoints (Host + ":" + Path) never rediscovered
+    private volatile boolean ignoredDirty;
     private ExecutorService saveExecutor;
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    private volatile FindingSnapshot savedSnapshot = FindingSnapshot.EMPTY; // Last snapshot written to persistence
+    private final Set<Integer> persistedSources = ConcurrentHashMap.newKeySet(); // Source ids with a stored copy
+    private ExecutorService exportExecutor;
+    private ScopeCache scopeCache;
+    private PathScanner pathScanner;
+    private ChunkCache chunkCache;
+    private ExtractorRegistry extractors;
+    private PatternProfiler profiler;
+
+    private static final int REPEATER_CONFIRM_LIMIT = 10; // Larger selections ask before opening a tab each
 
     @Override
     public void initialize(MontoyaApi api) {
@@ -59,17 +82,36 @@ public class ShadowApiVisualizer implements BurpExtension {
         api.extension().setName("Shadow API Visualizer");
 
         // --- DATA & SETTINGS ---
-        nodeMap = new ConcurrentHashMap<>();
-        hostNodeMap = new ConcurrentHashMap<>();
+        store = new FindingStore();
+        nodeMap = new HashMap<>();
+        hostNodeMap = new HashMap<>();
+        ignoredKeys = ConcurrentHashMap.newKeySet();
+        restoreIgnoreList();
         settings = new ShadowSettings();
+        profiler = new PatternProfiler();
         restoreSettings();
+        restorePatternStats();
+        applyPatternOrder();
         saveExecutor = Executors.newSingleThreadExecutor();
+        exportExecutor = Executors.newSingleThreadExecutor();
+        scopeCache = new ScopeCache(api.scope(), 4096);
+        pathScanner = new PathScanner(Runtime.getRuntime().availableProcessors());
+        chunkCache = new ChunkCache(8192);
+        extractors = ExtractorRegistry.defaults();
+        extractors.setDisabled(settings.disabledExtractors);
+        api.scope().registerScopeChangeHandler(change -> scopeCache.invalidate());
+        api.extension().registerUnloadingHandler(() -> {
+            if (summaryTimer != null) summaryTimer.stop();
+            pathScanner.shutdown();
+            profiler.shutdown();
+        });
 
         // --- UI COMPONENTS ---
         root = new DefaultMutableTreeNode("API Target (Root)");
         treeModel = new DefaultTreeModel(root);
         apiTree = new JTree(treeModel);
-        apiTree.setCellRenderer(new ShadowRenderer());
+        apiTree.setCellRenderer(new ShadowRenderer(store));
+        ToolTipManager.sharedInstance().registerComponent(apiTree);
         apiTree.setRootVisible(true);
         apiTree.setShowsRootHandles(true);
 
@@ -81,6 +123,8 @@ public class ShadowApiVisualizer implements BurpExtension {
         editorsTab.addTab("Found In (Source)", responseEditor.uiComponent());
 
         // --- CONTEXT MENU ---
+        // Actions apply to every selected node; "All Matching Filter" applies to
+        // everything the current status + text filter lets through.
         JPopupMenu popupMenu = new JPopupMenu();
         JMenuItem copyItem = new JMenuItem("Copy Path");
         JMenuItem sendRepeaterItem = new JMenuItem("Send Request to Repeater");
@@ -95,113 +139,79 @@ public class ShadowApiVisualizer implements BurpExtension {
         popupMenu.add(markUntestedItem);
         popupMenu.addSeparator();
         popupMenu.add(deleteItem);
+        popupMenu.addSeparator();
+        popupMenu.add(createMatchingFilterMenu());
 
         // --- HOST CONTEXT MENU ---
         JPopupMenu hostPopupMenu = new JPopupMenu();
         JMenuItem deleteHostItem = new JMenuItem("Delete Host");
         hostPopupMenu.add(deleteHostItem);
+        hostPopupMenu.addSeparator();
+        hostPopupMenu.add(createMatchingFilterMenu());
 
+        apiTree.getSelectionModel().setSelectionMode(TreeSelectionModel.DISCONTIGUOUS_TREE_SELECTION);
         apiTree.addMouseListener(new MouseAdapter() {
             public void mousePressed(MouseEvent e) {
                 if (SwingUtilities.isRightMouseButton(e)) {
                     int row = apiTree.getClosestRowForLocation(e.getX(), e.getY());
-                    apiTree.setSelectionRow(row);
-                    DefaultMutableTreeNode node = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
-                    if (node != null) {
-                        if (node.getUserObject() instanceof ShadowFinding) {
-                            popupMenu.show(e.getComponent(), e.getX(), e.getY());
-                        } else if (node.getLevel() == 1) {
-                            hostPopupMenu.show(e.getComponent(), e.getX(), e.getY());
-                        }
+                    // Keep a multi-selection if the click lands inside it
+                    if (!apiTree.isRowSelected(row)) {
+                        apiTree.setSelectionRow(row);
+                    }
+                    if (!selectedFindings().isEmpty()) {
+                        popupMenu.show(e.getComponent(), e.getX(), e.getY());
+                    } else if (!selectedHostNodes().isEmpty()) {
+                        hostPopupMenu.show(e.getComponent(), e.getX(), e.getY());
                     }
                 }
             }
         });
 
         copyItem.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof ShadowFinding) {
-                ShadowFinding finding = (ShadowFinding) node.getUserObject();
-                Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(finding.path), null);
+            String paths = selectedFindings().stream()
+                    .map(ShadowFinding::endpoint)
+                    .distinct()
+                    .collect(Collectors.joining("\n"));
+            if (!paths.isEmpty()) {
+                Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(paths), null);
             }
         });
 
         sendRepeaterItem.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof ShadowFinding) {
-                ShadowFinding finding = (ShadowFinding) node.getUserObject();
-                api.repeater().sendToRepeater(finding.requestResponse.request(), "Shadow Finding");
-                // Auto-mark as tested when sent to Repeater
-                if (!finding.isTested) {
-                    finding.isTested = true;
-                    treeModel.nodeChanged(node);
-                    saveSession();
-                }
-            }
-        });
-
-        markTestedItem.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof ShadowFinding) {
-                ShadowFinding finding = (ShadowFinding) node.getUserObject();
-                finding.isTested = true;
-                treeModel.nodeChanged(node);
-                saveSession();
+            List<ShadowFinding> findings = selectedFindings();
+            if (findings.size() > REPEATER_CONFIRM_LIMIT) {
+                int answer = JOptionPane.showConfirmDialog(apiTree, "Open " + findings.size() + " Repeater tabs?",
+                        "Send Request to Repeater", JOptionPane.OK_CANCEL_OPTION);
+                if (answer != JOptionPane.OK_OPTION) return;
             }
-        });
-
-        markUntestedItem.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof ShadowFinding) {
-                ShadowFinding finding = (ShadowFinding) node.getUserObject();
-                finding.isTested = false;
-                treeModel.nodeChanged(node);
-                saveSession();
-            }
-        });
-
-        deleteItem.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
-            if (node != null && node.getUserObject() instanceof ShadowFinding) {
-                ShadowFinding finding = (ShadowFinding) node.getUserObject();
-                String host = finding.requestResponse.request().httpService().host();
-                String key = host + "::" + finding.path;
-                nodeMap.remove(key);
-                treeModel.removeNodeFromParent(node);
-                saveSession();
-            }
-        });
-
-        deleteHostItem.addActionListener(e -> {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
-            if (node != null && node.getLevel() == 1) {
-                String host = (String) node.getUserObject();
-                
-                // Remove all children from nodeMap
-                int childCount = node.getChildCount();
-                for (int i = 0; i < childCount; i++) {
-                    DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(i);
-                    if (child.getUserObject() instanceof ShadowFinding) {
-                        ShadowFinding finding = (ShadowFinding) child.getUserObject();
-                        String key = host + "::" + finding.path;
-                        nodeMap.remove(key);
-                    }
+            FindingSnapshot snapshot = store.snapshot();
+            for (ShadowFinding finding : findings) {
+                HttpRequestResponse source = snapshot.source(finding.sourceId());
+                if (source != null && source.request() != null) {
+                    api.repeater().sendToRepeater(source.request(), "Shadow Finding");
                 }
-                
-                hostNodeMap.remove(host);
-                treeModel.removeNodeFromParent(node);
-                saveSession();
             }
+            // Auto-mark as tested when sent to Repeater
+            bulkSetTested(findings, true);
         });
 
+        markTestedItem.addActionListener(e -> bulkSetTested(selectedFindings(), true));
+        markUntestedItem.addActionListener(e -> bulkSetTested(selectedFindings(), false));
+        deleteItem.addActionListener(e -> bulkDelete(selectedFindings()));
+        deleteHostItem.addActionListener(e -> bulkDeleteHosts(selectedHostNodes().stream()
+                .map(node -> (String) node.getUserObject())
+                .collect(Collectors.toList())));
+
         // --- SELECTION LISTENER ---
         apiTree.addTreeSelectionListener(e -> {
             DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) apiTree.getLastSelectedPathComponent();
             if (selectedNode != null && selectedNode.getUserObject() instanceof ShadowFinding) {
                 ShadowFinding finding = (ShadowFinding) selectedNode.getUserObject();
-                requestEditor.setRequest(finding.requestResponse.request());
-                if (finding.requestResponse.response() != null) {
-                    String displayBody = finding.requestResponse.response().bodyToString();
+                HttpRequestResponse source = store.snapshot().source(finding.sourceId());
+                if (source == null) return; // Deleted in the meantime
+                requestEditor.setRequest(source.request());
+                if (source.response() != null) {
+                    String displayBody = source.response().bodyToString();
 
                     // Check if minified JS
                     if (displayBody.length() > 500 && countLines(displayBody) < 20) {
@@ -230,6 +240,7 @@ public class ShadowApiVisualizer implements BurpExtension {
         JToolBar toolBar = new JToolBar();
         JButton exportBtn = new JButton("Export All to Clipboard");
         JButton exportUntestedBtn = new JButton("Export Untested");
+        JButton exportFileBtn = new JButton("Export to File...");
         JButton clearBtn = new JButton("Clear All");
         
         // Status filter dropdown
@@ -254,43 +265,60 @@ public class ShadowApiVisualizer implements BurpExtension {
         });
 
         exportBtn.addActionListener(e -> {
-            String result = nodeMap.values().stream()
-                    .map(node -> ((ShadowFinding) node.getUserObject()).path)
-                    .collect(Collectors.joining("\n"));
+            // GraphQL operations share their endpoint, which is listed once
+            Set<String> paths = new LinkedHashSet<>();
+            for (ShadowFinding finding : store.snapshot().findings()) {
+                paths.add(finding.endpoint());
+            }
+            String result = String.join("\n", paths);
             Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(result), null);
-            JOptionPane.showMessageDialog(dashboardPanel, "Copied " + nodeMap.size() + " paths to clipboard.");
+            JOptionPane.showMessageDialog(dashboardPanel, "Copied " + paths.size() + " paths to clipboard.");
         });
 
         exportUntestedBtn.addActionListener(e -> {
-            List<String> untested = nodeMap.values().stream()
-                    .map(node -> (ShadowFinding) node.getUserObject())
-                    .filter(f -> !f.isTested && !f.isLive)
-                    .map(f -> f.path)
-                    .collect(Collectors.toList());
+            // Hosts with nothing left untested are skipped without looking at their findings
+            FindingSnapshot snapshot = store.snapshot();
+            Set<String> untested = new LinkedHashSet<>();
+            for (String host : snapshot.hostNames()) {
+                if (snapshot.host(host).count(FindingStatus.UNTESTED) == 0) continue;
+                for (ShadowFinding f : snapshot.findings(host)) {
+                    if (!f.isTested() && !f.isLive()) untested.add(f.endpoint());
+                }
+            }
             String result = String.join("\n", untested);
             Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(result), null);
             JOptionPane.showMessageDialog(dashboardPanel, "Copied " + untested.size() + " untested paths to clipboard.");
         });
 
+        exportFileBtn.addActionListener(e -> exportToFile(dashboardPanel));
+
         statusFilter.addActionListener(e -> {
             String selected = (String) statusFilter.getSelectedItem();
             applyStatusFilter(selected, searchField.getText());
         });
         
         clearBtn.addActionListener(e -> {
+            store.clear();
             nodeMap.clear();
             hostNodeMap.clear();
             root.removeAllChildren();
             treeModel.reload();
-            api.persistence().extensionData().deleteString("shadow_session");
+            saveSession(); // Writes the empty session and deletes every stored source
             statusLabel.setText("Project Cleared");
         });
 
         statusLabel = new JLabel("Project Synced");
         statusLabel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
 
+        summaryLabel = new JLabel();
+        summaryLabel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+        // Counters live in the snapshot; the timer only repaints when a new one was published
+        summaryTimer = new Timer(500, e -> refreshSummary());
+        summaryTimer.start();
+
         toolBar.add(exportBtn);
         toolBar.add(exportUntestedBtn);
+        toolBar.add(exportFileBtn);
         toolBar.add(clearBtn);
         toolBar.addSeparator();
         toolBar.add(new JLabel(" Status: "));
@@ -299,6 +327,7 @@ public class ShadowApiVisualizer implements BurpExtension {
         toolBar.add(searchLabel);
         toolBar.add(searchField);
         toolBar.add(Box.createHorizontalGlue());
+        toolBar.add(summaryLabel);
         toolBar.add(statusLabel);
         
         dashboardPanel.add(toolBar, BorderLayout.NORTH);
@@ -318,6 +347,47 @@ public class ShadowApiVisualizer implements BurpExtension {
         });
         settingsPanel.add(scopeOnlyCheck, gbc);
 
+        gbc.gridy++;
+        JPanel parallelPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        JCheckBox parallelCheck = new JCheckBox("Parallel Scan for Bundles Larger Than (KB): ", settings.parallelScan);
+        JSpinner parallelThresholdSpinner = new JSpinner(new SpinnerNumberModel(settings.parallelThresholdKb, 64, 1024 * 1024, 256));
+        parallelCheck.addActionListener(e -> {
+            settings.parallelScan = parallelCheck.isSelected();
+            saveSettings();
+        });
+        parallelThresholdSpinner.addChangeListener(e -> {
+            settings.parallelThresholdKb = (Integer) parallelThresholdSpinner.getValue();
+            saveSettings();
+        });
+        parallelPanel.add(parallelCheck);
+        parallelPanel.add(parallelThresholdSpinner);
+        settingsPanel.add(parallelPanel, gbc);
+
+        gbc.gridy++;
+        JCheckBox incrementalCheck = new JCheckBox("Incremental Rescan (reuse results for unchanged chunks of re-versioned bundles)", settings.incrementalScan);
+        incrementalCheck.addActionListener(e -> {
+            settings.incrementalScan = incrementalCheck.isSelected();
+            saveSettings();
+        });
+        settingsPanel.add(incrementalCheck, gbc);
+
+        gbc.gridy++;
+        JPanel extractorPanel = new JPanel(new GridLayout(0, 1));
+        extractorPanel.setBorder(BorderFactory.createTitledBorder("Extractors (each response goes to the cheapest enabled one that fits)"));
+        for (ShadowExtractor extractor : extractors.all()) {
+            JCheckBox extractorCheck = new JCheckBox(extractor.displayName(), extractors.isEnabled(extractor.id()));
+            extractorCheck.addActionListener(e -> {
+                List<String> disabled = new ArrayList<>(settings.disabledExtractors);
+                disabled.remove(extractor.id());
+                if (!extractorCheck.isSelected()) disabled.add(extractor.id());
+                settings.disabledExtractors = disabled;
+                extractors.setDisabled(disabled);
+                saveSettings();
+            });
+            extractorPanel.add(extractorCheck);
+        }
+        settingsPanel.add(extractorPanel, gbc);
+
         gbc.gridy++;
         settingsPanel.add(new JLabel("Regex Pattern (One per line):"), gbc);
         
@@ -330,11 +400,82 @@ public class ShadowApiVisualizer implements BurpExtension {
         JButton saveSettingsBtn = new JButton("Update Regex");
         saveSettingsBtn.addActionListener(e -> {
             settings.updateRegex(regexArea.getText());
+            applyPatternOrder();
             saveSettings();
             JOptionPane.showMessageDialog(settingsPanel, "Regex Updated!");
         });
         settingsPanel.add(saveSettingsBtn, gbc);
 
+        gbc.gridy++;
+        JPanel ignorePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        JLabel ignoredLabel = new JLabel("Ignored Endpoints: " + ignoredKeys.size() + "  ");
+        JButton clearIgnoredBtn = new JButton("Clear Ignore List");
+        clearIgnoredBtn.addActionListener(e -> {
+            ignoredKeys.clear();
+            api.persistence().extensionData().deleteString("shadow_ignored");
+            ignoredLabel.setText("Ignored Endpoints: 0  ");
+        });
+        settingsPanel.addComponentListener(new java.awt.event.ComponentAdapter() {
+            @Override
+            public void componentShown(java.awt.event.ComponentEvent e) {
+                ignoredLabel.setText("Ignored Endpoints: " + ignoredKeys.size() + "  ");
+            }
+        });
+        ignorePanel.add(ignoredLabel);
+        ignorePanel.add(clearIgnoredBtn);
+        settingsPanel.add(ignorePanel, gbc);
+
+        // Per-pattern profile: matches, findings, deletions and sampled cost
+        gbc.gridy++;
+        JPanel profilePanel = new JPanel(new BorderLayout(0, 5));
+        profilePanel.setBorder(BorderFactory.createTitledBorder("Pattern Profile"));
+        PatternProfileTableModel profileModel = new PatternProfileTableModel(profiler);
+        JTable profileTable = new JTable(profileModel);
+        profileTable.getColumnModel().getColumn(0).setPreferredWidth(400);
+        JScrollPane profileScroll = new JScrollPane(profileTable);
+        profileScroll.setPreferredSize(new Dimension(700, 180));
+        JComboBox<String> rankingBox = new JComboBox<>(PatternProfileTableModel.RANKINGS);
+        Runnable refreshProfile = () -> profileModel.refresh(settings.regexList, (String) rankingBox.getSelectedItem());
+        rankingBox.addActionListener(e -> refreshProfile.run());
+        JButton refreshProfileBtn = new JButton("Refresh");
+        refreshProfileBtn.addActionListener(e -> refreshProfile.run());
+        JButton resetProfileBtn = new JButton("Reset Statistics");
+        resetProfileBtn.addActionListener(e -> {
+            profiler.reset();
+            refreshProfile.run();
+            saveSession();
+        });
+        JCheckBox orderCheck = new JCheckBox("Evaluate Most Matched Patterns First", settings.orderPatternsByHits);
+        orderCheck.setToolTipText("Tries the patterns in order of measured matches. Findings are still credited to the pattern that matched, but where two patterns match at the same position the earlier one wins.");
+        JButton reorderBtn = new JButton("Reorder Now");
+        reorderBtn.setEnabled(settings.orderPatternsByHits);
+        orderCheck.addActionListener(e -> {
+            settings.orderPatternsByHits = orderCheck.isSelected();
+            reorderBtn.setEnabled(settings.orderPatternsByHits);
+            applyPatternOrder();
+            saveSettings();
+        });
+        reorderBtn.addActionListener(e -> {
+            applyPatternOrder();
+            statusLabel.setText("Reordered " + settings.regexList.size() + " patterns by matches");
+        });
+        JPanel profileControls = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        profileControls.add(new JLabel("Rank: "));
+        profileControls.add(rankingBox);
+        profileControls.add(refreshProfileBtn);
+        profileControls.add(resetProfileBtn);
+        profileControls.add(orderCheck);
+        profileControls.add(reorderBtn);
+        profilePanel.add(profileControls, BorderLayout.NORTH);
+        profilePanel.add(profileScroll, BorderLayout.CENTER);
+        settingsPanel.add(profilePanel, gbc);
+        settingsPanel.addComponentListener(new java.awt.event.ComponentAdapter() {
+            @Override
+            public void componentShown(java.awt.event.ComponentEvent e) {
+                refreshProfile.run();
+            }
+        });
+
         // --- MAIN TABS ---
         JTabbedPane mainTabs = new JTabbedPane();
         mainTabs.addTab("Dashboard", dashboardPanel);
@@ -350,6 +491,67 @@ public class ShadowApiVisualizer implements BurpExtension {
         restoreSession();
     }
 
+    private void exportToFile(Component parent) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Endpoints");
+        chooser.setAcceptAllFileFilterUsed(false);
+        Map<javax.swing.filechooser.FileFilter, ExportFormat> formats = new HashMap<>();
+        for (ExportFormat format : ExportFormat.values()) {
+            javax.swing.filechooser.FileNameExtensionFilter filter =
+                    new javax.swing.filechooser.FileNameExtensionFilter(format.description, format.extension);
+            formats.put(filter, format);
+            chooser.addChoosableFileFilter(filter);
+        }
+        chooser.setFileFilter(chooser.getChoosableFileFilters()[0]);
+        JCheckBox untestedOnly = new JCheckBox("Untested only");
+        chooser.setAccessory(untestedOnly);
+
+        if (chooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) return;
+
+        ExportFormat format = formats.getOrDefault(chooser.getFileFilter(), ExportFormat.WORDLIST);
+        java.io.File selected = chooser.getSelectedFile();
+        if (!selected.getName().contains(".")) {
+            selected = new java.io.File(selected.getParentFile(), selected.getName() + "." + format.extension);
+        }
+        if (selected.exists() && JOptionPane.showConfirmDialog(parent,
+                selected.getName() + " already exists. Overwrite it?", "Export Endpoints",
+                JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) != JOptionPane.YES_OPTION) {
+            return;
+        }
+        final java.io.File file = selected;
+        final boolean onlyUntested = untestedOnly.isSelected();
+
+        statusLabel.setText("Exporting...");
+        FindingSnapshot snapshot = store.snapshot();
+        exportExecutor.submit(() -> {
+            try {
+                Iterable<ShadowFinding> findings = onlyUntested ? untestedFindings(snapshot) : snapshot.findings();
+                int count = new ShadowExporter(snapshot).export(findings,
+                        f -> !onlyUntested || (!f.isTested() && !f.isLive()), format, file);
+                SwingUtilities.invokeLater(() -> statusLabel.setText("Exported " + count + " endpoints to " + file.getName()));
+            } catch (Exception ex) {
+                api.logging().logToError("Failed to export: " + ex.getMessage());
+                SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText("Export Failed");
+                    JOptionPane.showMessageDialog(parent, "Export failed: " + ex.getMessage());
+                });
+            }
+        });
+    }
+
+    // Findings of hosts that still have untested endpoints; other hosts are skipped via their counters
+    private Iterable<ShadowFinding> untestedFindings(FindingSnapshot snapshot) {
+        List<Iterable<ShadowFinding>> parts = new ArrayList<>();
+        for (String host : snapshot.hostNames()) {
+            if (snapshot.host(host).count(FindingStatus.UNTESTED) > 0) {
+                parts.add(snapshot.findings(host));
+            }
+        }
+        return () -> parts.stream()
+                .flatMap(part -> java.util.stream.StreamSupport.stream(part.spliterator(), false))
+                .iterator();
+    }
+
     private int countLines(String str) {
         if (str == null || str.isEmpty()) return 0;
         int lines = 1;
@@ -406,36 +608,26 @@ public class ShadowApiVisualizer implements BurpExtension {
     private void applyFilter(String text) {
         this.filterText = text.trim().toLowerCase();
         root.removeAllChildren();
-
-        // Group findings by host
-        Map<String, List<DefaultMutableTreeNode>> findingsByHost = new HashMap<>();
-        for (DefaultMutableTreeNode node : nodeMap.values()) {
-            ShadowFinding finding = (ShadowFinding) node.getUserObject();
-            
-            // Apply status filter
-            if (!matchesStatusFilter(finding)) {
-                continue;
-            }
-            
-            String host = finding.requestResponse.request().httpService().host();
-            findingsByHost.computeIfAbsent(host, k -> new ArrayList<>()).add(node);
-        }
-
-        for (String host : hostNodeMap.keySet()) {
-            DefaultMutableTreeNode hostNode = hostNodeMap.get(host);
+        for (DefaultMutableTreeNode hostNode : hostNodeMap.values()) {
             hostNode.removeAllChildren(); // Clear current view
+        }
 
+        FindingSnapshot snapshot = store.snapshot();
+        for (String host : snapshot.hostNames()) {
             boolean hostMatches = host.toLowerCase().contains(filterText);
-            List<DefaultMutableTreeNode> findings = findingsByHost.get(host);
             boolean hasVisibleChildren = false;
+            DefaultMutableTreeNode hostNode = getOrCreateHostNode(host);
 
-            if (findings != null) {
-                for (DefaultMutableTreeNode findingNode : findings) {
-                    ShadowFinding finding = (ShadowFinding) findingNode.getUserObject();
-                    boolean findingMatches = finding.path.toLowerCase().contains(filterText);
+            // Counters tell us up front whether the host has anything passing the status filter
+            if (statusFilterCount(snapshot.host(host)) > 0) {
+                for (ShadowFinding finding : snapshot.findings(host)) {
+                    if (!matchesStatusFilter(finding)) {
+                        continue;
+                    }
 
+                    boolean findingMatches = finding.path().toLowerCase().contains(filterText);
                     if (hostMatches || findingMatches) {
-                        hostNode.add(findingNode);
+                        hostNode.add(nodeFor(finding));
                         hasVisibleChildren = true;
                     }
                 }
@@ -468,19 +660,244 @@ public class ShadowApiVisualizer implements BurpExtension {
     private boolean matchesStatusFilter(ShadowFinding finding) {
         switch (statusFilterValue) {
             case "Untested Only":
-                return !finding.isTested && !finding.isLive;
+                return !finding.isTested() && !finding.isLive();
             case "Tested Only":
-                return finding.isTested && !finding.isLive;
+                return finding.isTested() && !finding.isLive();
             case "Verified Only":
-                return finding.isLive;
+                return finding.isLive();
             case "All":
             default:
                 return true;
         }
     }
 
+    private JMenu createMatchingFilterMenu() {
+        JMenu menu = new JMenu("All Matching Filter");
+        JMenuItem markTested = new JMenuItem("Mark as Tested");
+        JMenuItem markUntested = new JMenuItem("Mark as Untested");
+        JMenuItem delete = new JMenuItem("Delete / Ignore");
+        markTested.addActionListener(e -> bulkSetTested(matchingFindings(), true));
+        markUntested.addActionListener(e -> bulkSetTested(matchingFindings(), false));
+        delete.addActionListener(e -> {
+            List<ShadowFinding> findings = matchingFindings();
+            int answer = JOptionPane.showConfirmDialog(apiTree, "Delete and ignore " + findings.size() + " endpoints?",
+                    "Delete / Ignore", JOptionPane.OK_CANCEL_OPTION);
+            if (answer == JOptionPane.OK_OPTION) {
+                bulkDelete(findings);
+            }
+        });
+        menu.add(markTested);
+        menu.add(markUntested);
+        menu.addSeparator();
+        menu.add(delete);
+        return menu;
+    }
+
+    private List<ShadowFinding> selectedFindings() {
+        List<ShadowFinding> findings = new ArrayList<>();
+        TreePath[] paths = apiTree.getSelectionPaths();
+        if (paths == null) return findings;
+        for (TreePath path : paths) {
+            DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
+            if (node.getUserObject() instanceof ShadowFinding) {
+                findings.add((ShadowFinding) node.getUserObject());
+            }
+        }
+        return findings;
+    }
+
+    private List<DefaultMutableTreeNode> selectedHostNodes() {
+        List<DefaultMutableTreeNode> nodes = new ArrayList<>();
+        TreePath[] paths = apiTree.getSelectionPaths();
+        if (paths == null) return nodes;
+        for (TreePath path : paths) {
+            DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
+            if (node.getLevel() == 1) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    // Same rules as applyFilter, but collects the findings instead of building the tree
+    private List<ShadowFinding> matchingFindings() {
+        List<ShadowFinding> findings = new ArrayList<>();
+        FindingSnapshot snapshot = store.snapshot();
+        for (String host : snapshot.hostNames()) {
+            if (statusFilterCount(snapshot.host(host)) == 0) continue;
+            boolean hostMatches = host.toLowerCase().contains(filterText);
+            for (ShadowFinding finding : snapshot.findings(host)) {
+                if (matchesStatusFilter(finding) && (hostMatches || finding.path().toLowerCase().contains(filterText))) {
+                    findings.add(finding);
+                }
+            }
+        }
+        return findings;
+    }
+
+    // --- BULK OPERATIONS ---
+    // Each one publishes the whole batch as a single snapshot, then fires one tree
+    // event per host and schedules a single save. Called on the EDT; package-private
+    // so the tests can drive them without a popup menu.
+    void bulkSetTested(List<ShadowFinding> targets, boolean tested) {
+        List<ShadowFinding> changed = store.updateAll(targets, f -> f.withTested(tested));
+        if (changed.isEmpty()) return;
+
+        Map<TreeNode, Set<TreeNode>> changedByHost = new HashMap<>();
+        for (ShadowFinding finding : changed) {
+            DefaultMutableTreeNode node = nodeMap.get(finding.key());
+            if (node == null) continue;
+            node.setUserObject(finding);
+            if (node.getParent() != null) {
+                changedByHost.computeIfAbsent(node.getParent(), k -> new HashSet<>()).add(node);
+            }
+        }
+
+        for (Map.Entry<TreeNode, Set<TreeNode>> entry : changedByHost.entrySet()) {
+            TreeNode hostNode = entry.getKey();
+            int[] indices = childIndices(hostNode, entry.getValue());
+            treeModel.nodesChanged(hostNode, indices);
+        }
+        saveSession();
+        statusLabel.setText("Marked " + changed.size() + " endpoints as " + (tested ? "Tested" : "Untested"));
+    }
+
+    void bulkDelete(List<ShadowFinding> targets) {
+        List<ShadowFinding> removed = store.removeAll(targets);
+        if (removed.isEmpty()) return;
+
+        Map<DefaultMutableTreeNode, Set<TreeNode>> removedByHost = new HashMap<>();
+        for (ShadowFinding finding : removed) {
+            ignoredKeys.add(finding.key());
+            profiler.recordDeleted(finding.rule()); // A deleted finding counts as a false positive
+            DefaultMutableTreeNode node = nodeMap.remove(finding.key());
+            if (node != null && node.getParent() != null) {
+                removedByHost.computeIfAbsent((DefaultMutableTreeNode) node.getParent(), k -> new HashSet<>()).add(node);
+            }
+        }
+
+        for (Map.Entry<DefaultMutableTreeNode, Set<TreeNode>> entry : removedByHost.entrySet()) {
+            removeChildren(entry.getKey(), entry.getValue());
+        }
+        ignoredDirty = true;
+        saveSession();
+        statusLabel.setText("Deleted " + removed.size() + " endpoints");
+    }
+
+    void bulkDeleteHosts(List<String> hosts) {
+        if (hosts.isEmpty()) return;
+        Set<TreeNode> attached = new HashSet<>();
+        for (String host : hosts) {
+            DefaultMutableTreeNode node = hostNodeMap.remove(host);
+            if (node != null && node.getParent() == root) {
+                attached.add(node);
+            }
+        }
+
+        // Removes every finding of the hosts, including ones hidden by the current filter
+        for (ShadowFinding finding : store.removeHosts(hosts)) {
+            nodeMap.remove(finding.key());
+            ignoredKeys.add(finding.key());
+            profiler.recordDeleted(finding.rule());
+        }
+
+        removeChildren(root, attached);
+        ignoredDirty = true;
+        saveSession();
+        statusLabel.setText("Deleted " + hosts.size() + " hosts");
+    }
+
+    // Detaches the given children and reports them in one nodesWereRemoved event
+    private void removeChildren(DefaultMutableTreeNode parent, Set<TreeNode> children) {
+        int[] indices = childIndices(parent, children);
+        if (indices.length == 0) return;
+        Object[] removed = new Object[indices.length];
+        for (int i = indices.length - 1; i >= 0; i--) {
+            removed[i] = parent.getChildAt(indices[i]);
+            parent.remove(indices[i]);
+        }
+        treeModel.nodesWereRemoved(parent, indices, removed);
+    }
+
+    private int[] childIndices(TreeNode parent, Set<TreeNode> children) {
+        int[] indices = new int[children.size()];
+        int count = 0;
+        for (int i = 0; i < parent.getChildCount() && count < indices.length; i++) {
+            if (children.contains(parent.getChildAt(i))) {
+                indices[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    private int statusFilterCount(HostStats hostStats) {
+        switch (statusFilterValue) {
+            case "Untested Only":
+                return hostStats.count(FindingStatus.UNTESTED);
+            case "Tested Only":
+                return hostStats.count(FindingStatus.TESTED);
+            case "Verified Only":
+                return hostStats.count(FindingStatus.VERIFIED);
+            case "All":
+            default:
+                return hostStats.total();
+        }
+    }
+
+    private void refreshSummary() {
+        // Counters are replaced only when a count changes; anything else (a response
+        // attached, a label refreshed) keeps the same HostStats and costs no repaint.
+        FindingSnapshot snapshot = store.snapshot();
+        if (snapshot.global == summaryStats) return;
+        summaryStats = snapshot.global;
+
+        summaryLabel.setText(snapshot.size() + " endpoints on " + snapshot.hostCount() + " hosts: " + snapshot.global);
+        // Host labels carry counters too, so let the tree re-measure them
+        for (int i = 0; i < root.getChildCount(); i++) {
+            treeModel.nodeChanged(root.getChildAt(i));
+        }
+    }
+
+    // --- TREE NODES (EDT only) ---
+    // Nodes are a view over the store: created lazily, and re-pointed at the latest
+    // version of their finding whenever the store publishes a change.
+    private DefaultMutableTreeNode nodeFor(ShadowFinding finding) {
+        DefaultMutableTreeNode node = nodeMap.get(finding.key());
+        if (node == null) {
+            node = new DefaultMutableTreeNode(finding);
+            nodeMap.put(finding.key(), node);
+        } else {
+            node.setUserObject(finding);
+        }
+        return node;
+    }
+
+    private void showFinding(String host, String path) {
+        ShadowFinding finding = store.snapshot().get(host, path);
+        if (finding == null) return; // Deleted in the meantime
+        DefaultMutableTreeNode node = nodeFor(finding);
+        if (node.getParent() != null || !isVisible(host, path)) return;
+
+        DefaultMutableTreeNode hostNode = getOrCreateHostNode(host);
+        if (hostNode.getParent() == null) {
+            treeModel.insertNodeInto(hostNode, root, root.getChildCount());
+        }
+        treeModel.insertNodeInto(node, hostNode, hostNode.getChildCount());
+        if (!filterText.isEmpty()) {
+            apiTree.expandPath(new TreePath(hostNode.getPath()));
+        }
+    }
+
+    private void refreshFinding(String host, String path) {
+        ShadowFinding finding = store.snapshot().get(host, path);
+        DefaultMutableTreeNode node = nodeMap.get(host + "::" + path);
+        if (finding == null || node == null) return;
+        node.setUserObject(finding);
+        treeModel.nodeChanged(node);
+    }
+
     private DefaultMutableTreeNode getOrCreateHostNode(String host) {
-        if (host == null || host.isEmpty()) host = "Unknown Host";
+        host = ShadowFinding.hostName(host);
         
         if (hostNodeMap.containsKey(host)) return hostNodeMap.get(host);
         
@@ -504,6 +921,11 @@ public class ShadowApiVisualizer implements BurpExtension {
             try {
                 ShadowSettings loaded = new Gson().fromJson(json, ShadowSettings.class);
                 settings.scopeOnly = loaded.scopeOnly;
+                settings.parallelScan = loaded.parallelScan;
+                settings.parallelThresholdKb = loaded.parallelThresholdKb;
+                settings.incrementalScan = loaded.incrementalScan;
+                if (loaded.disabledExtractors != null) settings.disabledExtractors = loaded.disabledExtractors;
+                settings.orderPatternsByHits = loaded.orderPatternsByHits;
                 settings.regexList = loaded.regexList;
                 settings.updateRegex(String.join("\n", settings.regexList));
             } catch (Exception e) {
@@ -512,17 +934,64 @@ public class ShadowApiVisualizer implements BurpExtension {
         }
     }
 
+    // Recompiles the patterns, most matched first when that option is on
+    private void applyPatternOrder() {
+        settings.compile(settings.orderPatternsByHits ? profiler.hotFirst(settings.regexList) : null);
+    }
+
+    private void restorePatternStats() {
+        String json = api.persistence().extensionData().getString("shadow_pattern_stats");
+        if (json != null && !json.isEmpty()) {
+            try {
+                Type listType = new TypeToken<ArrayList<PatternStatsDTO>>(){}.getType();
+                profiler.restore(new Gson().fromJson(json, listType));
+            } catch (Exception e) {
+                api.logging().logToError("Failed to restore pattern statistics: " + e.getMessage());
+            }
+        }
+    }
+
     private void saveSession() {
+        // Coalesce: if a save is already queued it will pick up this change too
+        if (!savePending.compareAndSet(false, true)) return;
         saveExecutor.submit(() -> {
+            savePending.set(false);
             try {
-                List<ShadowFindingDTO> dtos = new ArrayList<>();
-                for (DefaultMutableTreeNode node : nodeMap.values()) {
-                    if (node.getUserObject() instanceof ShadowFinding) {
-                        dtos.add(new ShadowFindingDTO((ShadowFinding) node.getUserObject()));
+                FindingSnapshot snapshot = store.snapshot();
+                PersistedObject data = api.persistence().extensionData();
+                Gson gson = new Gson();
+
+                // Sources are written once under their own key, before any session that refers to them
+                for (Integer id : snapshot.sourceIds()) {
+                    if (!persistedSources.contains(id)) {
+                        data.setString(SOURCE_KEY_PREFIX + id, gson.toJson(new ShadowSourceDTO(snapshot.source(id))));
+                        persistedSources.add(id);
                     }
                 }
-                String json = new Gson().toJson(dtos);
-                api.persistence().extensionData().setString("shadow_session", json);
+
+                List<ShadowFindingDTO> dtos = new ArrayList<>(snapshot.size());
+                for (ShadowFinding finding : snapshot.findings()) {
+                    dtos.add(new ShadowFindingDTO(finding));
+                }
+                String json = gson.toJson(dtos);
+                data.setString("shadow_session", json);
+                savedSnapshot = snapshot;
+
+                // Sources whose last finding is gone are no longer needed
+                for (Iterator<Integer> it = persistedSources.iterator(); it.hasNext(); ) {
+                    Integer id = it.next();
+                    if (snapshot.source(id) == null) {
+                        data.deleteString(SOURCE_KEY_PREFIX + id);
+                        it.remove();
+                    }
+                }
+                if (profiler.takeDirty()) {
+                    data.setString("shadow_pattern_stats", gson.toJson(profiler.toDtos()));
+                }
+                if (ignoredDirty) {
+                    ignoredDirty = false;
+                    api.persistence().extensionData().setString("shadow_ignored", new Gson().toJson(new ArrayList<>(ignoredKeys)));
+                }
                 SwingUtilities.invokeLater(() -> statusLabel.setText("Last Saved: " + java.time.LocalTime.now().toString()));
             } catch (Exception e) {
                 api.logging().logToError("Failed to save session: " + e.getMessage());
@@ -530,28 +999,66 @@ public class ShadowApiVisualizer implements BurpExtension {
         });
     }
 
+    private void restoreIgnoreList() {
+        String json = api.persistence().extensionData().getString("shadow_ignored");
+        if (json != null && !json.isEmpty()) {
+            try {
+                Type listType = new TypeToken<ArrayList<String>>(){}.getType();
+                List<String> keys = new Gson().fromJson(json, listType);
+                ignoredKeys.addAll(keys);
+            } catch (Exception e) {
+                api.logging().logToError("Failed to restore ignore list: " + e.getMessage());
+            }
+        }
+    }
+
     private void restoreSession() {
         String json = api.persistence().extensionData().getString("shadow_session");
         if (json != null && !json.isEmpty()) {
             try {
                 Type listType = new TypeToken<ArrayList<ShadowFindingDTO>>(){}.getType();
-                List<ShadowFindingDTO> dtos = new Gson().fromJson(json, listType);
-                
+                Gson gson = new Gson();
+                List<ShadowFindingDTO> dtos = gson.fromJson(json, listType);
+
+                int nextLegacyId = 0;
                 for (ShadowFindingDTO dto : dtos) {
-                    ShadowFinding finding = dto.toShadowFinding(api);
-                    String host = finding.requestResponse.request().httpService().host();
-                    String key = host + "::" + finding.path;
-                    
-                    DefaultMutableTreeNode newNode = new DefaultMutableTreeNode(finding);
-                    nodeMap.put(key, newNode);
-                    
-                    DefaultMutableTreeNode hostNode = getOrCreateHostNode(host);
-                    if (hostNode.getParent() == null) {
-                        root.add(hostNode);
+                    if (dto.sourceId != null) nextLegacyId = Math.max(nextLegacyId, dto.sourceId + 1);
+                }
+
+                Map<Integer, HttpRequestResponse> sources = new HashMap<>();
+                List<Integer> storedIds = new ArrayList<>();
+                Map<List<String>, Integer> legacyIds = new HashMap<>(); // Identical inline traffic becomes one source
+                List<ShadowFinding> findings = new ArrayList<>(dtos.size());
+                for (ShadowFindingDTO dto : dtos) {
+                    int id;
+                    if (dto.sourceId != null) {
+                        id = dto.sourceId;
+                        if (!sources.containsKey(id)) {
+                            String source = api.persistence().extensionData().getString(SOURCE_KEY_PREFIX + id);
+                            if (source == null) continue; // Lost its traffic; skip rather than fail the restore
+                            sources.put(id, gson.fromJson(source, ShadowSourceDTO.class).toRequestResponse());
+                            storedIds.add(id);
+                        }
+                    } else {
+                        ShadowSourceDTO inline = dto.inlineSource();
+                        if (inline == null) continue;
+                        List<String> content = Arrays.asList(inline.requestBase64, inline.responseBase64);
+                        Integer known = legacyIds.get(content);
+                        if (known == null) {
+                            known = nextLegacyId++;
+                            legacyIds.put(content, known);
+                            sources.put(known, inline.toRequestResponse());
+                        }
+                        id = known;
                     }
-                    hostNode.add(newNode);
+                    findings.add(dto.toShadowFinding(id, sources.get(id), profiler.resolveKey(dto.rule, settings.regexList)));
                 }
-                treeModel.reload();
+                store.addAll(findings, sources);
+                // Only after the store holds them, so a concurrent save cannot treat them as unused.
+                // Legacy inline sources are not in here and get their own key on the next save.
+                persistedSources.addAll(storedIds);
+                savedSnapshot = store.snapshot();
+                SwingUtilities.invokeLater(() -> applyFilter(filterText));
                 api.logging().logToOutput("Restored " + dtos.size() + " findings from previous session.");
             } catch (Exception e) {
                 api.logging().logToError("Failed to restore session: " + e.getMessage());
@@ -559,68 +1066,75 @@ public class ShadowApiVisualizer implements BurpExtension {
         }
     }
 
+    private static final String SOURCE_KEY_PREFIX = "shadow_source_";
+
+    // --- DIAGNOSTICS ---
+    // Package-private hooks for the load-test harness (src/loadtest).
+
+    FindingStore findingStore() {
+        return store;
+    }
+
+    ChunkCache chunkCache() {
+        return chunkCache;
+    }
+
+    /** Findings published to the store but not yet covered by a completed save. */
+    int saveBacklog() {
+        return Math.max(0, store.snapshot().size() - savedSnapshot.size());
+    }
+
+    /** True once the latest published snapshot has been written and no save is queued. */
+    boolean isSaveDrained() {
+        return !savePending.get() && store.snapshot() == savedSnapshot;
+    }
+
     // --- TRAFFIC WATCHER ---
     class TrafficWatcher implements HttpHandler {
 
-        private String getFoundPath(Matcher matcher) {
-            if (matcher.groupCount() > 0) {
-                for (int i = 1; i <= matcher.groupCount(); i++) {
-                    if (matcher.group(i) != null) {
-                        return matcher.group(i);
-                    }
-                }
-            }
-            return matcher.group();
-        }
+        private static final int SERIAL_SCAN_LIMIT = 5000000; // 5MB
+        private static final int PARALLEL_SCAN_LIMIT = 50000000; // 50MB
+        private static final int GRAPHQL_VERIFY_LIMIT = 65536; // 64KB, parsed on the proxy thread
 
         @Override
         public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
             String currentPath = requestToBeSent.path();
-            String host = requestToBeSent.httpService().host();
-            String key = host + "::" + currentPath;
+            String host = ShadowFinding.hostName(requestToBeSent.httpService().host());
 
-            // Feature: Live Verification
-            if (nodeMap.containsKey(key)) {
-                DefaultMutableTreeNode node = nodeMap.get(key);
-                ShadowFinding finding = (ShadowFinding) node.getUserObject();
+            // Feature: Live Verification of GraphQL operations, named in the request body.
+            // Larger bodies (file uploads, huge batches) are left alone rather than parsed inline.
+            if ("POST".equalsIgnoreCase(requestToBeSent.method()) && currentPath.toLowerCase().contains("graphql")
+                    && requestToBeSent.body().length() <= GRAPHQL_VERIFY_LIMIT) {
+                verifyGraphQlOperations(host, requestToBeSent);
+            }
 
-                if (!finding.isLive) {
-                    finding.isLive = true;
-                    SwingUtilities.invokeLater(() -> treeModel.nodeChanged(node));
+            // Feature: Live Verification
+            ShadowFinding existing = store.snapshot().get(host, currentPath);
+            if (existing != null) {
+                if (!existing.isLive() && store.update(host, currentPath, f -> f.withLive(true)) != null) {
+                    SwingUtilities.invokeLater(() -> refreshFinding(host, currentPath));
                     api.logging().logToOutput("[*] Verified Shadow API: " + currentPath);
                     saveSession();
                 }
             } else {
                 // Feature: Live API Discovery
-                if (settings.scopeOnly && !api.scope().isInScope(requestToBeSent.url())) {
+                if (settings.scopeOnly && !scopeCache.isInScope(requestToBeSent)) {
                     return RequestToBeSentAction.continueWith(requestToBeSent);
                 }
 
-                Matcher matcher = settings.combinedPattern.matcher(currentPath);
+                PatternSet patterns = settings.patternSet;
+                Matcher matcher = patterns.pattern.matcher(currentPath);
                 if (matcher.find()) {
-                    String foundPath = getFoundPath(matcher);
-                    if (foundPath != null && !foundPath.isEmpty()) {
-                        String foundKey = host + "::" + foundPath;
-                        if (!nodeMap.containsKey(foundKey)) {
+                    int group = PathMatch.foundGroup(matcher);
+                    String foundPath = matcher.group(group);
+                    if (foundPath != null && !foundPath.isEmpty() && !ignoredKeys.contains(host + "::" + foundPath)) {
+                        String rule = patterns.rule(group);
+                        ShadowFinding finding = new ShadowFinding(host, foundPath, requestToBeSent.method(),
+                                store.newSourceId(), 0, 0, ShadowFinding.LIVE, rule);
+                        if (store.add(finding, HttpRequestResponse.httpRequestResponse(requestToBeSent, null))) {
+                            profiler.recordFinding(rule);
                             api.logging().logToOutput("[+] Discovered Live API: " + foundPath);
-                            ShadowFinding finding = new ShadowFinding(foundPath, requestToBeSent.method(), HttpRequestResponse.httpRequestResponse(requestToBeSent, null), 0, 0);
-                            finding.isLive = true;
-
-                            DefaultMutableTreeNode newNode = new DefaultMutableTreeNode(finding);
-                            nodeMap.put(foundKey, newNode);
-                            
-                            SwingUtilities.invokeLater(() -> {
-                                if (isVisible(host, foundPath)) {
-                                    DefaultMutableTreeNode hostNode = getOrCreateHostNode(host);
-                                    if (hostNode.getParent() == null) {
-                                        treeModel.insertNodeInto(hostNode, root, root.getChildCount());
-                                    }
-                                    treeModel.insertNodeInto(newNode, hostNode, hostNode.getChildCount());
-                                    if (!filterText.isEmpty()) {
-                                        apiTree.expandPath(new TreePath(hostNode.getPath()));
-                                    }
-                                }
-                            });
+                            SwingUtilities.invokeLater(() -> showFinding(host, foundPath));
                             saveSession();
                         }
                     }
@@ -632,87 +1146,101 @@ public class ShadowApiVisualizer implements BurpExtension {
         @Override
         public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
             String requestPath = responseReceived.initiatingRequest().path();
-            String host = responseReceived.initiatingRequest().httpService().host();
-            String key = host + "::" + requestPath;
+            String host = ShadowFinding.hostName(responseReceived.initiatingRequest().httpService().host());
 
             // Feature: Update response for live-discovered APIs
-            if (nodeMap.containsKey(key)) {
-                DefaultMutableTreeNode node = nodeMap.get(key);
-                ShadowFinding finding = (ShadowFinding) node.getUserObject();
-                if (finding.requestResponse.response() == null) {
-                    finding.requestResponse = HttpRequestResponse.httpRequestResponse(responseReceived.initiatingRequest(), responseReceived);
+            ShadowFinding existing = store.snapshot().get(host, requestPath);
+            if (existing != null && !existing.hasResponse()) {
+                HttpRequestResponse traffic = HttpRequestResponse.httpRequestResponse(responseReceived.initiatingRequest(), responseReceived);
+                if (store.attachResponse(host, requestPath, traffic) != null) {
+                    SwingUtilities.invokeLater(() -> refreshFinding(host, requestPath));
                     saveSession();
                 }
             }
 
             // Feature: Scope Check for response analysis
-            if (settings.scopeOnly && !api.scope().isInScope(responseReceived.initiatingRequest().url())) {
+            if (settings.scopeOnly && !scopeCache.isInScope(responseReceived.initiatingRequest())) {
                 return ResponseReceivedAction.continueWith(responseReceived);
             }
 
-            boolean isJS = responseReceived.inferredMimeType().name().contains("SCRIPT") ||
-                    responseReceived.bodyToString().contains("function ") || 
-                    responseReceived.bodyToString().contains("const ");
+            // Tiered classification: headers, extension, inferred MIME, then a bounded sniff
+            ContentKind kind = ContentClassifier.classify(responseReceived, responseReceived.initiatingRequest());
+            if (!kind.isScannable()) {
+                return ResponseReceivedAction.continueWith(responseReceived);
+            }
 
-            if (isJS) {
-                String body = responseReceived.bodyToString();
-                
-                // Optimization: Skip very large files to prevent regex freezing
-                if (body.length() > 5000000) { // 5MB limit
-                     return ResponseReceivedAction.continueWith(responseReceived);
-                }
-                
-                Matcher matcher = settings.combinedPattern.matcher(body);
+            String body = responseReceived.bodyToString();
 
-                while (matcher.find()) {
-                    String foundPath = getFoundPath(matcher);
+            // Large bundles are split across cores; past the limit, skip to prevent regex freezing
+            boolean parallel = settings.parallelScan && body.length() >= settings.parallelThresholdKb * 1024L;
+            if (body.length() > (parallel ? PARALLEL_SCAN_LIMIT : SERIAL_SCAN_LIMIT)) {
+                return ResponseReceivedAction.continueWith(responseReceived);
+            }
 
-                    if (foundPath == null || foundPath.isEmpty()) {
-                        continue;
-                    }
-                    
-                    String foundKey = host + "::" + foundPath;
-                    if (nodeMap.containsKey(foundKey)) {
-                        continue;
-                    }
+            // The cheapest enabled extractor for this kind, plus supplementary ones (GraphQL)
+            List<ShadowExtractor> chosen = extractors.select(kind, body);
+            if (chosen.isEmpty()) {
+                return ResponseReceivedAction.continueWith(responseReceived);
+            }
+            PatternSet patterns = settings.patternSet;
+            ExtractionContext context = new ExtractionContext(body, kind, patterns.pattern, pathScanner,
+                    settings.incrementalScan ? chunkCache : null,
+                    parallel ? settings.parallelThresholdKb * 1024L : Long.MAX_VALUE);
+            List<PathMatch> matches = new ArrayList<>();
+            for (ShadowExtractor extractor : chosen) {
+                extractor.extract(context, matches);
+            }
+            profiler.recordMatches(patterns, matches);
+            profiler.maybeSample(patterns, body);
+            if (matches.isEmpty()) {
+                return ResponseReceivedAction.continueWith(responseReceived);
+            }
 
-                    int start = matcher.start();
-                    int end = matcher.end();
-
-                    // Feature: Method Inference
-                    String method = inferMethod(body, start);
-
-                    HttpRequestResponse storedTraffic = HttpRequestResponse.httpRequestResponse(
-                            responseReceived.initiatingRequest(),
-                            responseReceived
-                    );
-
-                    final String finalFoundPath = foundPath;
-                    SwingUtilities.invokeLater(() -> {
-                        if (!nodeMap.containsKey(foundKey)) {
-                            ShadowFinding finding = new ShadowFinding(finalFoundPath, method, storedTraffic, start, end);
-                            DefaultMutableTreeNode newNode = new DefaultMutableTreeNode(finding);
-
-                            nodeMap.put(foundKey, newNode);
-                            
-                            if (isVisible(host, finalFoundPath)) {
-                                DefaultMutableTreeNode hostNode = getOrCreateHostNode(host);
-                                if (hostNode.getParent() == null) {
-                                    treeModel.insertNodeInto(hostNode, root, root.getChildCount());
-                                }
-                                treeModel.insertNodeInto(newNode, hostNode, hostNode.getChildCount());
-                                if (!filterText.isEmpty()) {
-                                    apiTree.expandPath(new TreePath(hostNode.getPath()));
-                                }
-                            }
-                        }
-                    });
-                    saveSession();
+            HttpRequestResponse storedTraffic = HttpRequestResponse.httpRequestResponse(
+                    responseReceived.initiatingRequest(),
+                    responseReceived
+            );
+
+            FindingSnapshot snapshot = store.snapshot();
+            int sourceId = -1; // Shared by every finding from this response, reserved on the first one
+            for (PathMatch match : matches) {
+                if (snapshot.get(host, match.path) != null || ignoredKeys.contains(host + "::" + match.path)) {
+                    continue;
                 }
+
+                // Feature: Method Inference (unless the extractor knows it, e.g. a form's method)
+                String method = match.method != null ? match.method : inferMethod(body, match.start);
+
+                if (sourceId < 0) sourceId = store.newSourceId();
+                addFinding(host, match.path, method, sourceId, storedTraffic, match.start, match.end, patterns.rule(match.group));
             }
             return ResponseReceivedAction.continueWith(responseReceived);
         }
 
+        private void verifyGraphQlOperations(String host, HttpRequestToBeSent request) {
+            FindingSnapshot snapshot = store.snapshot();
+            if (snapshot.host(host).total() == 0) return; // Nothing to verify: skip decoding the body
+            boolean verified = false;
+            for (String path : GraphQlExtractor.requested(request.bodyToString())) {
+                ShadowFinding existing = snapshot.get(host, path);
+                if (existing == null || existing.isLive()) continue;
+                if (store.update(host, path, f -> f.withLive(true)) != null) {
+                    SwingUtilities.invokeLater(() -> refreshFinding(host, path));
+                    api.logging().logToOutput("[*] Verified GraphQL operation: " + existing.operation());
+                    verified = true;
+                }
+            }
+            if (verified) saveSession();
+        }
+
+        private void addFinding(String host, String foundPath, String method, int sourceId, HttpRequestResponse storedTraffic, int start, int end, String rule) {
+            if (store.add(new ShadowFinding(host, foundPath, method, sourceId, start, end, ShadowFinding.HAS_RESPONSE, rule), storedTraffic)) {
+                profiler.recordFinding(rule);
+                SwingUtilities.invokeLater(() -> showFinding(host, foundPath));
+                saveSession();
+            }
+        }
+
         private String inferMethod(String body, int index) {
             // Look backwards 50 chars for keywords
             int lookBack = Math.max(0, index - 50);
@@ -731,8 +1259,13 @@ public class ShadowApiVisualizer implements BurpExtension {
 // --- SETTINGS CLASS ---
 class ShadowSettings {
     public boolean scopeOnly = false;
+    public boolean parallelScan = true;
+    public int parallelThresholdKb = 1024;
+    public boolean incrementalScan = true;
+    public List<String> disabledExtractors = new ArrayList<>(); // Extractor ids; new extractors start enabled
+    public boolean orderPatternsByHits = false; // Try the most matched patterns first
     public List<String> regexList = new ArrayList<>();
-    public transient Pattern combinedPattern;
+    public transient volatile PatternSet patternSet;
 
     public ShadowSettings() {
         // Default Regex - Expanded for better coverage
@@ -765,61 +1298,228 @@ class ShadowSettings {
 
     public void updateRegex(String text) {
         regexList.clear();
-        List<String> parts = new ArrayList<>();
         for (String line : text.split("\n")) {
             if (!line.trim().isEmpty()) {
                 regexList.add(line.trim());
-                parts.add(line.trim());
             }
         }
-        // Combine into one pattern with OR
-        String combined = String.join("|", parts);
+        compile(null);
+    }
+
+    /** Combines the patterns into one alternation, tried in {@code order} (null for list order). */
+    public void compile(int[] order) {
         try {
-            // Optimization: Case Insensitive
-            combinedPattern = Pattern.compile(combined, Pattern.CASE_INSENSITIVE);
+            patternSet = PatternSet.compile(regexList, order);
         } catch (Exception e) {
             // Fallback
-            combinedPattern = Pattern.compile("['\"]?(\\/api\\/[a-zA-Z0-9_\\-/]+)['\"]?", Pattern.CASE_INSENSITIVE);
+            patternSet = PatternSet.compile(List.of("['\"]?(\\/api\\/[a-zA-Z0-9_\\-/]+)['\"]?"));
+        }
+    }
+}
+
+// --- REQUEST METHOD ---
+// Any other verb (PROPFIND, MKCOL, ...) is OTHER here; ShadowFinding keeps its name.
+enum RequestMethod {
+    UNKNOWN, GET, POST, PUT, DELETE, PATCH, HEAD, OPTIONS, TRACE, CONNECT, OTHER;
+
+    private static final RequestMethod[] VALUES = values();
+
+    static RequestMethod of(String method) {
+        if (method == null || method.isEmpty()) return UNKNOWN;
+        for (int i = GET.ordinal(); i < OTHER.ordinal(); i++) {
+            if (VALUES[i].name().equalsIgnoreCase(method)) return VALUES[i];
         }
+        return OTHER;
+    }
+
+    static RequestMethod fromCode(int code) {
+        return VALUES[code];
+    }
+
+    /** Name shown to the user; null when the method could not be inferred. */
+    String label() {
+        return this == UNKNOWN ? null : name();
     }
 }
 
 // --- DATA OBJECT ---
+// Immutable and compact: host and path are symbol ids, the method an enum code (a
+// symbol id for verbs outside the enum), the status a bit field, and the traffic it was
+// found in a source id shared with every other finding from the same response (see
+// FindingSnapshot.source). State changes produce a new instance that is published
+// through FindingStore.
 class ShadowFinding {
-    public String path;
-    public String method; // GET, POST, etc.
-    public HttpRequestResponse requestResponse;
-    public int start;
-    public int end;
-    public boolean isLive;
-    public boolean isTested; // Track if user has manually tested this endpoint
+    public static final int LIVE = 1;
+    public static final int TESTED = 1 << 1;
+    public static final int HAS_RESPONSE = 1 << 2;
+    public static final String UNKNOWN_HOST = "Unknown Host";
+
+    private final int hostId;
+    private final int pathId;
+    private final int sourceId;
+    private final int start;
+    private final int end;
+    private final byte method; // RequestMethod ordinal, or CUSTOM_METHOD + Symbols.METHODS id
+    private final byte flags;
+    private final short rule; // Symbols.RULES id + 1 of the pattern that found it, 0 if none
+    private String label; // Built on first render; state changes create a new instance
+
+    public ShadowFinding(String host, String path, String method, int sourceId, int start, int end, int flags) {
+        this(host, path, method, sourceId, start, end, flags, null);
+    }
 
-    public ShadowFinding(String path, String method, HttpRequestResponse requestResponse, int start, int end) {
-        this.path = path;
-        this.method = method;
-        this.requestResponse = requestResponse;
+    public ShadowFinding(String host, String path, String method, int sourceId, int start, int end, int flags, String rule) {
+        this(Symbols.HOSTS.intern(host), Symbols.PATHS.intern(path), sourceId, start, end,
+                methodCode(method), (byte) flags, ruleCode(rule));
+    }
+
+    /** Host name findings are stored and shown under; an empty host becomes UNKNOWN_HOST. */
+    static String hostName(String host) {
+        return host == null || host.isEmpty() ? UNKNOWN_HOST : host;
+    }
+
+    private ShadowFinding(int hostId, int pathId, int sourceId, int start, int end, byte method, byte flags, short rule) {
+        this.hostId = hostId;
+        this.pathId = pathId;
+        this.sourceId = sourceId;
         this.start = start;
         this.end = end;
-        this.isLive = false;
-        this.isTested = false;
+        this.method = method;
+        this.flags = flags;
+        this.rule = rule;
+    }
+
+    private static final int CUSTOM_METHOD = RequestMethod.values().length;
+
+    // Custom verbs are interned; past the byte range they fall back to a bare OTHER
+    private static byte methodCode(String method) {
+        RequestMethod known = RequestMethod.of(method);
+        if (known != RequestMethod.OTHER) return (byte) known.ordinal();
+        int code = CUSTOM_METHOD + Symbols.METHODS.intern(method);
+        return code <= Byte.MAX_VALUE ? (byte) code : (byte) RequestMethod.OTHER.ordinal();
+    }
+
+    private static short ruleCode(String rule) {
+        if (rule == null) return 0;
+        int id = Symbols.RULES.intern(rule);
+        return id < Short.MAX_VALUE ? (short) (id + 1) : 0;
+    }
+
+    private ShadowFinding withFlags(int newFlags) {
+        return newFlags == flags ? this : new ShadowFinding(hostId, pathId, sourceId, start, end, method, (byte) newFlags, rule);
+    }
+
+    private int flag(int bit, boolean on) {
+        return on ? flags | bit : flags & ~bit;
+    }
+
+    public ShadowFinding withLive(boolean live) {
+        return withFlags(flag(LIVE, live));
+    }
+
+    public ShadowFinding withTested(boolean tested) {
+        return withFlags(flag(TESTED, tested));
+    }
+
+    public ShadowFinding withSource(int newSourceId, boolean hasResponse) {
+        return new ShadowFinding(hostId, pathId, newSourceId, start, end, method, (byte) flag(HAS_RESPONSE, hasResponse), rule);
+    }
+
+    public String host() {
+        return Symbols.HOSTS.name(hostId);
+    }
+
+    public String path() {
+        return Symbols.PATHS.name(pathId);
+    }
+
+    int pathId() {
+        return pathId;
+    }
+
+    /** The path to request: path() without the "#query.Name" a GraphQL operation is stored under. */
+    public String endpoint() {
+        String path = path();
+        int hash = path.indexOf('#');
+        return hash < 0 ? path : path.substring(0, hash);
+    }
+
+    /** The GraphQL operation this finding stands for, e.g. "query GetUser"; null for other findings. */
+    public String operation() {
+        String path = path();
+        int hash = path.indexOf('#');
+        return hash < 0 ? null : path.substring(hash + 1).replace('.', ' ');
+    }
+
+    public RequestMethod requestMethod() {
+        return method >= CUSTOM_METHOD ? RequestMethod.OTHER : RequestMethod.fromCode(method);
+    }
+
+    /** GET, POST, PROPFIND, etc.; null when it could not be inferred. */
+    public String method() {
+        return method >= CUSTOM_METHOD ? Symbols.METHODS.name(method - CUSTOM_METHOD) : requestMethod().label();
+    }
+
+    /** Compact method code; equal codes mean the same verb. */
+    int methodCode() {
+        return method;
+    }
+
+    public int sourceId() {
+        return sourceId;
+    }
+
+    /** The regex pattern that found this endpoint; null for other extractors and old sessions. */
+    public String rule() {
+        return rule == 0 ? null : Symbols.RULES.name(rule - 1);
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    public boolean isLive() {
+        return (flags & LIVE) != 0;
+    }
+
+    // Track if user has manually tested this endpoint
+    public boolean isTested() {
+        return (flags & TESTED) != 0;
+    }
+
+    public boolean hasResponse() {
+        return (flags & HAS_RESPONSE) != 0;
+    }
+
+    public FindingStatus status() {
+        if (isLive()) return FindingStatus.VERIFIED;
+        if (isTested()) return FindingStatus.TESTED;
+        return FindingStatus.UNTESTED;
+    }
+
+    public String key() {
+        return host() + "::" + path();
     }
 
     @Override
     public String toString() {
-        String prefix = method != null ? "[" + method + "] " : "";
-        String status;
-        if (isLive) {
-            status = " [Verified]";
-        } else if (isTested) {
-            status = " [Tested]";
-        } else {
-            status = " [Untested]";
+        // Racy but idempotent: at worst two threads build the same label
+        String text = label;
+        if (text == null) {
+            String prefix = method() != null ? "[" + method() + "] " : "";
+            String operation = operation();
+            text = prefix + endpoint() + (operation != null ? " (" + operation + ")" : "") + " [" + status() + "]";
+            label = text;
         }
-        return prefix + path + status;
+        return text;
     }
 }
 
-// --- DTO FOR SERIALIZATION ---
+// --- DTOs FOR SERIALIZATION ---
 class ShadowFindingDTO {
     public String path;
     public String method;
@@ -827,34 +1527,68 @@ class ShadowFindingDTO {
     public int end;
     public boolean isLive;
     public boolean isTested;
+    public String host;
+    public Integer sourceId;
+    public String rule; // PatternProfiler.ruleKey of the pattern that found it
+    // Older sessions stored the traffic inline with every finding
     public String requestBase64;
     public String responseBase64;
+    public Boolean isHttps;
+    public Integer port;
+
+    public ShadowFindingDTO(ShadowFinding finding) {
+        this.path = finding.path();
+        this.method = finding.method();
+        this.start = finding.start();
+        this.end = finding.end();
+        this.isLive = finding.isLive();
+        this.isTested = finding.isTested();
+        this.host = finding.host();
+        this.sourceId = finding.sourceId();
+        this.rule = finding.rule() != null ? PatternProfiler.ruleKey(finding.rule()) : null;
+    }
+
+    public ShadowFinding toShadowFinding(int sourceId, HttpRequestResponse source, String resolvedRule) {
+        int flags = (isLive ? ShadowFinding.LIVE : 0) | (isTested ? ShadowFinding.TESTED : 0)
+                | (source.response() != null ? ShadowFinding.HAS_RESPONSE : 0);
+        String findingHost = ShadowFinding.hostName(host != null ? host : source.request().httpService().host());
+        return new ShadowFinding(findingHost, path, method, sourceId, start, end, flags, resolvedRule);
+    }
+
+    public ShadowSourceDTO inlineSource() {
+        return requestBase64 != null ? new ShadowSourceDTO(host, port != null ? port : 443, isHttps == null || isHttps, requestBase64, responseBase64) : null;
+    }
+}
+
+// One per source, stored under its own key so a save only writes sources it has not written before
+class ShadowSourceDTO {
     public String host;
-    public boolean isHttps;
     public int port;
+    public boolean isHttps;
+    public String requestBase64;
+    public String responseBase64;
 
-    public ShadowFindingDTO(ShadowFinding finding) {
-        this.path = finding.path;
-        this.method = finding.method;
-        this.start = finding.start;
-        this.end = finding.end;
-        this.isLive = finding.isLive;
-        this.isTested = finding.isTested;
-        
-        if (finding.requestResponse != null) {
-            if (finding.requestResponse.request() != null) {
-                this.requestBase64 = Base64.getEncoder().encodeToString(finding.requestResponse.request().toByteArray().getBytes());
-                this.host = finding.requestResponse.request().httpService().host();
-                this.isHttps = finding.requestResponse.request().httpService().secure();
-                this.port = finding.requestResponse.request().httpService().port();
-            }
-            if (finding.requestResponse.response() != null) {
-                this.responseBase64 = Base64.getEncoder().encodeToString(finding.requestResponse.response().toByteArray().getBytes());
-            }
+    public ShadowSourceDTO(String host, int port, boolean isHttps, String requestBase64, String responseBase64) {
+        this.host = host;
+        this.port = port;
+        this.isHttps = isHttps;
+        this.requestBase64 = requestBase64;
+        this.responseBase64 = responseBase64;
+    }
+
+    public ShadowSourceDTO(HttpRequestResponse traffic) {
+        if (traffic.request() != null) {
+            this.requestBase64 = Base64.getEncoder().encodeToString(traffic.request().toByteArray().getBytes());
+            this.host = traffic.request().httpService().host();
+            this.isHttps = traffic.request().httpService().secure();
+            this.port = traffic.request().httpService().port();
+        }
+        if (traffic.response() != null) {
+            this.responseBase64 = Base64.getEncoder().encodeToString(traffic.response().toByteArray().getBytes());
         }
     }
 
-    public ShadowFinding toShadowFinding(MontoyaApi api) {
+    public HttpRequestResponse toRequestResponse() {
         HttpRequest request = null;
         HttpResponse response = null;
 
@@ -870,11 +1604,7 @@ class ShadowFindingDTO {
             );
         }
 
-        HttpRequestResponse rr = HttpRequestResponse.httpRequestResponse(request, response);
-        ShadowFinding finding = new ShadowFinding(path, method, rr, start, end);
-        finding.isLive = isLive;
-        finding.isTested = isTested;
-        return finding;
+        return HttpRequestResponse.httpRequestResponse(request, response);
     }
 }
 
@@ -885,7 +1615,10 @@ class ShadowRenderer extends DefaultTreeCellRenderer {
     private final Icon findingIcon;
     private final Icon rootIcon;
 
-    public ShadowRenderer() {
+    private final FindingStore store;
+
+    public ShadowRenderer(FindingStore store) {
+        this.store = store;
         // Load standard Swing icons
         Icon folder = UIManager.getIcon("FileView.directoryIcon");
         Icon file = UIManager.getIcon("FileView.fileIcon");
@@ -905,14 +1638,15 @@ class ShadowRenderer extends DefaultTreeCellRenderer {
 
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) value;
         Object userObject = node.getUserObject();
+        setToolTipText(null);
 
         if (userObject instanceof ShadowFinding) {
             ShadowFinding finding = (ShadowFinding) userObject;
             setIcon(findingIcon);
             
-            if (finding.isLive) {
+            if (finding.isLive()) {
                 setForeground(new Color(0, 128, 0)); // Dark Green - Verified in traffic
-            } else if (finding.isTested) {
+            } else if (finding.isTested()) {
                 setForeground(new Color(180, 130, 0)); // Orange/Yellow - Tested manually
             } else {
                 setForeground(new Color(180, 0, 0)); // Dark Red - Untested
@@ -920,7 +1654,9 @@ class ShadowRenderer extends DefaultTreeCellRenderer {
         } else if (node.getLevel() == 1) { 
             // Host Node
             setIcon(hostIcon);
-            setText("🔒 " + userObject.toString());
+            HostStats hostStats = store.snapshot().host(userObject.toString());
+            setText("🔒 " + userObject.toString() + "  (" + hostStats + ")");
+            setToolTipText(methodSummary(hostStats));
             // Removed explicit setForeground(Color.BLACK) to allow theme adaptation
         } else if (node.isRoot()) {
             setIcon(rootIcon);
@@ -929,4 +1665,13 @@ class ShadowRenderer extends DefaultTreeCellRenderer {
 
         return this;
     }
+
+    private String methodSummary(HostStats hostStats) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : hostStats.byMethod().entrySet()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
 }
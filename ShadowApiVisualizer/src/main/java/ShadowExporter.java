@@ -0,0 +1,323 @@
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// --- EXPORT FORMATS ---
+enum ExportFormat {
+    WORDLIST("Wordlist (*.txt)", "txt"),
+    CSV("CSV (*.csv)", "csv"),
+    JSONL("JSON Lines (*.jsonl)", "jsonl"),
+    OPENAPI("OpenAPI 3 Skeleton (*.json)", "json");
+
+    public final String description;
+    public final String extension;
+
+    ExportFormat(String description, String extension) {
+        this.description = description;
+        this.extension = extension;
+    }
+}
+
+// --- STREAMING EXPORTER ---
+// Writes findings straight to disk, one record at a time, so large sessions never
+// get joined into a single String. Meant to run off the EDT. GraphQL operations are
+// written under their real endpoint, with the operation in a field of its own.
+class ShadowExporter {
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("[0-9]+");
+    private static final Pattern UUID_SEGMENT = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern HEX_SEGMENT = Pattern.compile("[0-9a-fA-F]{16,}");
+    // The only operation keys an OpenAPI path item takes
+    private static final Set<String> OPENAPI_METHODS = Set.of("get", "put", "post", "delete", "options", "head", "patch", "trace");
+
+    private final Gson gson = new Gson();
+    private final FindingSnapshot snapshot; // Resolves each finding's source
+
+    public ShadowExporter(FindingSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Streams every finding accepted by {@code filter} into {@code file}.
+     * Returns the number of endpoints written.
+     */
+    public int export(Iterable<ShadowFinding> findings, Predicate<ShadowFinding> filter, ExportFormat format, File file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            switch (format) {
+                case CSV:
+                    return writeCsv(findings, filter, writer);
+                case JSONL:
+                    return writeJsonLines(findings, filter, writer);
+                case OPENAPI:
+                    return writeOpenApi(findings, filter, writer);
+                case WORDLIST:
+                default:
+                    return writeWordlist(findings, filter, writer);
+            }
+        }
+    }
+
+    private int writeWordlist(Iterable<ShadowFinding> findings, Predicate<ShadowFinding> filter, BufferedWriter writer) throws IOException {
+        // Each path once: every GraphQL operation shares its endpoint
+        Set<String> written = new HashSet<>();
+        int count = 0;
+        for (ShadowFinding finding : findings) {
+            if (!filter.test(finding) || !written.add(finding.endpoint())) continue;
+            writer.write(finding.endpoint());
+            writer.newLine();
+            count++;
+        }
+        return count;
+    }
+
+    private int writeCsv(Iterable<ShadowFinding> findings, Predicate<ShadowFinding> filter, BufferedWriter writer) throws IOException {
+        writer.write("host,method,path,status,source,start,end,operation");
+        writer.newLine();
+        int count = 0;
+        for (ShadowFinding finding : findings) {
+            if (!filter.test(finding)) continue;
+            writer.write(csv(finding.host()));
+            writer.write(',');
+            writer.write(csv(finding.method()));
+            writer.write(',');
+            writer.write(csv(finding.endpoint()));
+            writer.write(',');
+            writer.write(finding.status().label);
+            writer.write(',');
+            writer.write(csv(sourceOf(finding)));
+            writer.write(',');
+            writer.write(Integer.toString(finding.start()));
+            writer.write(',');
+            writer.write(Integer.toString(finding.end()));
+            writer.write(',');
+            writer.write(csv(finding.operation()));
+            writer.newLine();
+            count++;
+        }
+        return count;
+    }
+
+    private int writeJsonLines(Iterable<ShadowFinding> findings, Predicate<ShadowFinding> filter, BufferedWriter writer) throws IOException {
+        int count = 0;
+        for (ShadowFinding finding : findings) {
+            if (!filter.test(finding)) continue;
+            JsonObject line = new JsonObject();
+            line.addProperty("host", finding.host());
+            line.addProperty("method", finding.method());
+            line.addProperty("path", finding.endpoint());
+            if (finding.operation() != null) line.addProperty("operation", finding.operation());
+            line.addProperty("status", finding.status().label);
+            line.addProperty("source", sourceOf(finding));
+            line.addProperty("start", finding.start());
+            line.addProperty("end", finding.end());
+            writer.write(gson.toJson(line));
+            writer.newLine();
+            count++;
+        }
+        return count;
+    }
+
+    private int writeOpenApi(Iterable<ShadowFinding> findings, Predicate<ShadowFinding> filter, BufferedWriter writer) throws IOException {
+        // Only the grouping index (template -> host -> methods) is held in memory;
+        // the document itself is streamed out through JsonWriter.
+        Map<String, Map<String, Set<String>>> index = new TreeMap<>();
+        Map<String, Set<String>> operations = new TreeMap<>(); // Template + " " + method -> GraphQL operations
+        Map<String, String> origins = new HashMap<>(); // Host -> scheme://host[:port] of its traffic
+        Set<String> hosts = new TreeSet<>();
+        int count = 0;
+        for (ShadowFinding finding : findings) {
+            if (!filter.test(finding)) continue;
+            String host = finding.host();
+            String method = operationKey(finding.method());
+            if (!origins.containsKey(host)) {
+                String origin = originOf(finding);
+                if (origin != null) origins.put(host, origin);
+            }
+            String template = toPathTemplate(finding.endpoint());
+            index.computeIfAbsent(template, k -> new TreeMap<>())
+                    .computeIfAbsent(host, k -> new TreeSet<>())
+                    .add(method);
+            if (finding.operation() != null) {
+                operations.computeIfAbsent(template + " " + method, k -> new TreeSet<>()).add(finding.operation());
+            }
+            hosts.add(host);
+            count++;
+        }
+
+        JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("openapi").value("3.0.3");
+        json.name("info").beginObject()
+                .name("title").value("Shadow API Visualizer Export")
+                .name("version").value("1.0.0")
+                .endObject();
+
+        json.name("tags").beginArray();
+        for (String host : hosts) {
+            json.beginObject().name("name").value(host).endObject();
+        }
+        json.endArray();
+
+        json.name("paths").beginObject();
+        for (Map.Entry<String, Map<String, Set<String>>> pathEntry : index.entrySet()) {
+            String template = pathEntry.getKey();
+            Map<String, Set<String>> byHost = pathEntry.getValue();
+
+            json.name(template).beginObject();
+            json.name("servers").beginArray();
+            for (String host : byHost.keySet()) {
+                json.beginObject().name("url").value(origins.getOrDefault(host, "https://" + host)).endObject();
+            }
+            json.endArray();
+
+            // Merge methods across hosts, remembering which hosts expose each one
+            Map<String, Set<String>> hostsByMethod = new TreeMap<>();
+            for (Map.Entry<String, Set<String>> hostEntry : byHost.entrySet()) {
+                for (String method : hostEntry.getValue()) {
+                    hostsByMethod.computeIfAbsent(method, k -> new TreeSet<>()).add(hostEntry.getKey());
+                }
+            }
+
+            for (Map.Entry<String, Set<String>> methodEntry : hostsByMethod.entrySet()) {
+                json.name(methodEntry.getKey()).beginObject();
+                json.name("tags").beginArray();
+                for (String host : methodEntry.getValue()) {
+                    json.value(host);
+                }
+                json.endArray();
+                writePathParameters(json, template);
+                Set<String> graphQl = operations.get(template + " " + methodEntry.getKey());
+                if (graphQl != null) {
+                    json.name("x-graphql-operations").beginArray();
+                    for (String operation : graphQl) {
+                        json.value(operation);
+                    }
+                    json.endArray();
+                }
+                json.name("responses").beginObject()
+                        .name("default").beginObject()
+                        .name("description").value("Discovered by Shadow API Visualizer")
+                        .endObject()
+                        .endObject();
+                json.endObject();
+            }
+            json.endObject();
+        }
+        json.endObject();
+        json.endObject();
+        json.flush();
+        return count;
+    }
+
+    private void writePathParameters(JsonWriter json, String template) throws IOException {
+        json.name("parameters").beginArray();
+        int open = template.indexOf('{');
+        while (open >= 0) {
+            int close = template.indexOf('}', open);
+            if (close < 0) break;
+            json.beginObject()
+                    .name("name").value(template.substring(open + 1, close))
+                    .name("in").value("path")
+                    .name("required").value(true)
+                    .name("schema").beginObject().name("type").value("string").endObject()
+                    .endObject();
+            open = template.indexOf('{', close);
+        }
+        json.endArray();
+    }
+
+    /**
+     * Path item key for a method: the lower-case verb when OpenAPI defines it, otherwise
+     * an extension key such as "x-method-propfind". Findings without a method are GETs.
+     */
+    static String operationKey(String method) {
+        if (method == null || method.isEmpty()) return "get";
+        String key = method.toLowerCase(Locale.ROOT);
+        return OPENAPI_METHODS.contains(key) ? key : "x-method-" + key;
+    }
+
+    /**
+     * Normalizes a discovered path into an OpenAPI path template:
+     * ":id" style and numeric/uuid/hex segments become "{param}" placeholders.
+     */
+    static String toPathTemplate(String path) {
+        String clean = path;
+        int cut = clean.indexOf('?');
+        if (cut >= 0) clean = clean.substring(0, cut);
+        cut = clean.indexOf('#');
+        if (cut >= 0) clean = clean.substring(0, cut);
+
+        StringBuilder sb = new StringBuilder();
+        Set<String> usedNames = new TreeSet<>();
+        for (String segment : clean.split("/")) {
+            if (segment.isEmpty()) continue;
+            String name = null;
+            if (segment.startsWith("{") && segment.endsWith("}") && segment.length() > 2) {
+                name = segment.substring(1, segment.length() - 1);
+            } else if (segment.startsWith(":") && segment.length() > 1) {
+                name = segment.substring(1);
+            } else if (NUMERIC_SEGMENT.matcher(segment).matches()
+                    || UUID_SEGMENT.matcher(segment).matches()
+                    || HEX_SEGMENT.matcher(segment).matches()) {
+                name = "id";
+            }
+
+            sb.append('/');
+            if (name != null) {
+                String unique = name;
+                for (int i = 2; !usedNames.add(unique); i++) {
+                    unique = name + i;
+                }
+                sb.append('{').append(unique).append('}');
+            } else {
+                sb.append(segment);
+            }
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    private String sourceOf(ShadowFinding finding) {
+        HttpRequestResponse source = snapshot.source(finding.sourceId());
+        HttpRequest request = source != null ? source.request() : null;
+        return request != null ? request.path() : "";
+    }
+
+    // Scheme, host and non-default port of the traffic a finding was discovered in
+    private String originOf(ShadowFinding finding) {
+        HttpRequestResponse source = snapshot.source(finding.sourceId());
+        HttpRequest request = source != null ? source.request() : null;
+        HttpService service = request != null ? request.httpService() : null;
+        if (service == null || service.host() == null || service.host().isEmpty()) return null;
+        String scheme = service.secure() ? "https" : "http";
+        int port = service.port();
+        boolean defaultPort = port <= 0 || port == (service.secure() ? 443 : 80);
+        return scheme + "://" + service.host() + (defaultPort ? "" : ":" + port);
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,912 @@
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// --- EXTRACTOR SPI ---
+// Turns one classified response body into path matches. Primary extractors compete:
+// a body goes to the cheapest enabled one that supports its kind and accepts it.
+// Supplementary extractors (GraphQL operations) run alongside whichever primary won.
+interface ShadowExtractor {
+
+    /** Stable id, persisted in the settings when the extractor is disabled. */
+    String id();
+
+    /** Label for the Settings tab. */
+    String displayName();
+
+    boolean supports(ContentKind kind);
+
+    /** Relative cost per byte; lower wins among primary extractors. */
+    int cost();
+
+    default boolean isSupplementary() {
+        return false;
+    }
+
+    /** Cheap look at the body before committing to a full pass. */
+    default boolean accepts(String body) {
+        return true;
+    }
+
+    /** Appends matches to {@code out}; offsets index into {@code context.body}. */
+    void extract(ExtractionContext context, List<PathMatch> out);
+}
+
+// --- EXTRACTION CONTEXT ---
+// One per response: the body, the pattern in force and the scan strategy for regions
+// of it. Large regions go through the PathScanner (serial, parallel or incremental by
+// size); small ones such as attribute or string values share one Matcher.
+final class ExtractionContext {
+
+    static final int INCREMENTAL_SCAN_MIN = 64 * 1024; // Below this chunking costs more than it saves
+
+    final String body;
+    final ContentKind kind;
+    final Pattern pattern;
+    private final PathScanner scanner;
+    private final ChunkCache chunkCache; // Null when incremental rescans are off
+    private final long parallelThreshold; // Long.MAX_VALUE when parallel scans are off
+    private Matcher matcher;
+
+    ExtractionContext(String body, ContentKind kind, Pattern pattern, PathScanner scanner, ChunkCache chunkCache, long parallelThreshold) {
+        this.body = body;
+        this.kind = kind;
+        this.pattern = pattern;
+        this.scanner = scanner;
+        this.chunkCache = chunkCache;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /** Scans a code region of any size with the combined pattern. */
+    List<PathMatch> scan(int from, int to) {
+        int size = to - from;
+        boolean parallel = size >= parallelThreshold;
+        if (chunkCache != null && size >= INCREMENTAL_SCAN_MIN) {
+            // Re-versioned bundles only pay for the chunks that changed since any earlier build
+            return scanner.scanIncremental(pattern, body, from, to, chunkCache, parallel);
+        }
+        if (parallel) {
+            return scanner.scanParallel(pattern, body, from, to);
+        }
+        return scanner.scanSerial(pattern, body, from, to);
+    }
+
+    /** Matches a short value region, tagging results with {@code method} (null to infer). */
+    void match(int from, int to, String method, List<PathMatch> out) {
+        if (matcher == null) matcher = pattern.matcher(body);
+        matcher.region(from, to);
+        while (matcher.find()) {
+            int group = PathMatch.foundGroup(matcher);
+            String found = matcher.group(group);
+            if (found != null && !found.isEmpty()) {
+                out.add(new PathMatch(found, matcher.start(), matcher.end(), group, method));
+            }
+        }
+    }
+}
+
+// --- EXTRACTOR REGISTRY ---
+// Orders the extractors per content kind once, whenever the enabled set changes, so the
+// per-response lookup is an array walk. Disabled ids are kept rather than enabled ones,
+// so extractors added in later versions start out enabled.
+class ExtractorRegistry {
+
+    private static final class Plan {
+        final ShadowExtractor[] primary;
+        final ShadowExtractor[] supplementary;
+
+        Plan(ShadowExtractor[] primary, ShadowExtractor[] supplementary) {
+            this.primary = primary;
+            this.supplementary = supplementary;
+        }
+    }
+
+    private final List<ShadowExtractor> extractors;
+    private volatile Set<String> disabled = Set.of();
+    private volatile Map<ContentKind, Plan> plans;
+
+    public ExtractorRegistry(List<ShadowExtractor> extractors) {
+        this.extractors = List.copyOf(extractors);
+        rebuild();
+    }
+
+    public static ExtractorRegistry defaults() {
+        return new ExtractorRegistry(List.of(
+                new RegexExtractor(),
+                new JsonWalkerExtractor(),
+                new HtmlTokenizerExtractor(),
+                new GraphQlExtractor()));
+    }
+
+    public List<ShadowExtractor> all() {
+        return extractors;
+    }
+
+    public boolean isEnabled(String id) {
+        return !disabled.contains(id);
+    }
+
+    public synchronized void setDisabled(Collection<String> ids) {
+        disabled = Set.copyOf(ids);
+        rebuild();
+    }
+
+    /** Extractors to run for a body of this kind, primary first; empty when none fit. */
+    public List<ShadowExtractor> select(ContentKind kind, String body) {
+        Plan plan = plans.get(kind);
+        if (plan == null) return List.of();
+        List<ShadowExtractor> chosen = new ArrayList<>(2);
+        for (ShadowExtractor extractor : plan.primary) {
+            if (extractor.accepts(body)) {
+                chosen.add(extractor);
+                break;
+            }
+        }
+        for (ShadowExtractor extractor : plan.supplementary) {
+            if (extractor.accepts(body)) chosen.add(extractor);
+        }
+        return chosen;
+    }
+
+    private void rebuild() {
+        Map<ContentKind, Plan> built = new EnumMap<>(ContentKind.class);
+        for (ContentKind kind : ContentKind.values()) {
+            List<ShadowExtractor> primary = new ArrayList<>();
+            List<ShadowExtractor> supplementary = new ArrayList<>();
+            for (ShadowExtractor extractor : extractors) {
+                if (!extractor.supports(kind) || disabled.contains(extractor.id())) continue;
+                (extractor.isSupplementary() ? supplementary : primary).add(extractor);
+            }
+            if (primary.isEmpty() && supplementary.isEmpty()) continue;
+            ShadowExtractor[] ordered = primary.toArray(new ShadowExtractor[0]);
+            Arrays.sort(ordered, (a, b) -> Integer.compare(a.cost(), b.cost()));
+            built.put(kind, new Plan(ordered, supplementary.toArray(new ShadowExtractor[0])));
+        }
+        plans = built;
+    }
+}
+
+// --- REGEX EXTRACTOR ---
+// The original behaviour and the fallback for every scannable kind: the combined
+// pattern over whole scripts, HTML inline scripts and JSON string values.
+class RegexExtractor implements ShadowExtractor {
+
+    @Override
+    public String id() {
+        return "regex";
+    }
+
+    @Override
+    public String displayName() {
+        return "Regex (whole scripts; fallback for HTML and JSON)";
+    }
+
+    @Override
+    public boolean supports(ContentKind kind) {
+        return kind.isScannable();
+    }
+
+    @Override
+    public int cost() {
+        return 100;
+    }
+
+    @Override
+    public void extract(ExtractionContext context, List<PathMatch> out) {
+        String body = context.body;
+        // HTML only needs its inline scripts scanned, JSON only its string values
+        List<int[]> regions;
+        if (context.kind == ContentKind.HTML) {
+            regions = ContentRegions.htmlScripts(body);
+        } else if (context.kind == ContentKind.JSON) {
+            regions = ContentRegions.jsonStrings(body);
+        } else {
+            regions = List.of(new int[]{0, body.length()});
+        }
+        for (int[] region : regions) {
+            out.addAll(context.scan(region[0], region[1]));
+        }
+    }
+}
+
+// --- JSON WALKER ---
+// Single pass over the token structure, tracking object/array nesting so only string
+// values (never keys, numbers or literals) are matched. Values with escapes such as
+// "\/api\/users" are decoded first, which the regex over raw text could never match.
+class JsonWalkerExtractor implements ShadowExtractor {
+
+    @Override
+    public String id() {
+        return "json";
+    }
+
+    @Override
+    public String displayName() {
+        return "JSON walker (string values only)";
+    }
+
+    @Override
+    public boolean supports(ContentKind kind) {
+        return kind == ContentKind.JSON;
+    }
+
+    @Override
+    public int cost() {
+        return 10;
+    }
+
+    @Override
+    public void extract(ExtractionContext context, List<PathMatch> out) {
+        walk(context, 0, context.body.length(), out);
+    }
+
+    /** Walks a JSON document in [from, to); also used for JSON script blocks in HTML. */
+    static void walk(ExtractionContext context, int from, int to, List<PathMatch> out) {
+        String json = context.body;
+        boolean[] inObject = new boolean[32];
+        int depth = 0;
+        boolean expectKey = false;
+        int i = from;
+        while (i < to) {
+            char c = json.charAt(i);
+            switch (c) {
+                case '{':
+                case '[':
+                    if (depth == inObject.length) inObject = Arrays.copyOf(inObject, depth * 2);
+                    inObject[depth++] = c == '{';
+                    expectKey = c == '{';
+                    i++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth > 0) depth--;
+                    expectKey = false;
+                    i++;
+                    break;
+                case ',':
+                    expectKey = depth > 0 && inObject[depth - 1];
+                    i++;
+                    break;
+                case ':':
+                    expectKey = false;
+                    i++;
+                    break;
+                case '"':
+                    int start = i++;
+                    boolean hasSlash = false;
+                    boolean escaped = false;
+                    while (i < to) {
+                        char s = json.charAt(i);
+                        if (s == '\\') {
+                            escaped = true;
+                            if (i + 1 < to && json.charAt(i + 1) == '/') hasSlash = true;
+                            i += 2;
+                            continue;
+                        }
+                        if (s == '"') break;
+                        if (s == '/') hasSlash = true;
+                        i++;
+                    }
+                    int end = Math.min(i + 1, to);
+                    i = end;
+                    if (expectKey || !hasSlash) break;
+                    if (escaped) {
+                        matchDecoded(context, start, end, out);
+                    } else {
+                        context.match(start, end, null, out);
+                    }
+                    break;
+                default:
+                    i++;
+            }
+        }
+    }
+
+    // Matches the unescaped value; results point at the whole string in the body
+    private static void matchDecoded(ExtractionContext context, int start, int end, List<PathMatch> out) {
+        String raw = context.body;
+        StringBuilder value = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '\\' && i + 1 < end) {
+                char next = raw.charAt(++i);
+                if (next == 'u' && i + 4 < end) {
+                    try {
+                        value.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    } catch (NumberFormatException e) {
+                        value.append(next);
+                    }
+                } else {
+                    value.append(next == 'n' || next == 'r' || next == 't' ? ' ' : next);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        Matcher matcher = context.pattern.matcher(value);
+        while (matcher.find()) {
+            int group = PathMatch.foundGroup(matcher);
+            String found = matcher.group(group);
+            if (found != null && !found.isEmpty()) {
+                out.add(new PathMatch(found, start, end, group, null));
+            }
+        }
+    }
+}
+
+// --- HTML TOKENIZER ---
+// Walks tags rather than searching for "<script" text, so commented-out markup and
+// style blocks are skipped. Feeds inline scripts to the scanner, JSON script blocks to
+// the JSON walker, and href/action/formaction values to the pattern (forms keep their
+// declared method).
+class HtmlTokenizerExtractor implements ShadowExtractor {
+
+    @Override
+    public String id() {
+        return "html";
+    }
+
+    @Override
+    public String displayName() {
+        return "HTML tokenizer (inline scripts, href and form actions)";
+    }
+
+    @Override
+    public boolean supports(ContentKind kind) {
+        return kind == ContentKind.HTML;
+    }
+
+    @Override
+    public int cost() {
+        return 20;
+    }
+
+    @Override
+    public void extract(ExtractionContext context, List<PathMatch> out) {
+        String html = context.body;
+        int length = html.length();
+        List<int[]> links = new ArrayList<>(); // {valueStart, valueEnd}
+        int pos = 0;
+        while (pos < length) {
+            int open = html.indexOf('<', pos);
+            if (open < 0 || open + 1 >= length) break;
+            if (html.startsWith("<!--", open)) {
+                int close = html.indexOf("-->", open + 4);
+                pos = close < 0 ? length : close + 3;
+                continue;
+            }
+            char first = html.charAt(open + 1);
+            if (!Character.isLetter(first)) {
+                // Closing tag, doctype or a stray '<' in text
+                int close = html.indexOf('>', open + 1);
+                pos = close < 0 ? length : close + 1;
+                continue;
+            }
+
+            int nameEnd = open + 1;
+            while (nameEnd < length && isNameChar(html.charAt(nameEnd))) nameEnd++;
+            String tag = html.substring(open + 1, nameEnd).toLowerCase();
+
+            links.clear();
+            String type = null;
+            String method = null;
+            int i = nameEnd;
+            while (i < length && html.charAt(i) != '>') {
+                char c = html.charAt(i);
+                if (c <= ' ' || c == '/') {
+                    i++;
+                    continue;
+                }
+                int attrStart = i;
+                while (i < length && isNameChar(html.charAt(i))) i++;
+                if (i == attrStart) {
+                    i++;
+                    continue;
+                }
+                String attr = html.substring(attrStart, i).toLowerCase();
+                while (i < length && html.charAt(i) <= ' ') i++;
+                if (i >= length || html.charAt(i) != '=') continue;
+                i++;
+                while (i < length && html.charAt(i) <= ' ') i++;
+                if (i >= length) break;
+
+                int valueStart = i;
+                int valueEnd;
+                char quote = html.charAt(i);
+                if (quote == '"' || quote == '\'') {
+                    int close = html.indexOf(quote, i + 1);
+                    valueEnd = close < 0 ? length : close + 1;
+                } else {
+                    valueEnd = i;
+                    while (valueEnd < length && html.charAt(valueEnd) > ' ' && html.charAt(valueEnd) != '>') valueEnd++;
+                }
+                i = valueEnd;
+
+                switch (attr) {
+                    case "href":
+                    case "action":
+                    case "formaction":
+                        links.add(new int[]{valueStart, valueEnd});
+                        break;
+                    case "type":
+                        type = unquote(html, valueStart, valueEnd).toLowerCase();
+                        break;
+                    case "method":
+                    case "formmethod":
+                        method = unquote(html, valueStart, valueEnd).toUpperCase();
+                        break;
+                    default:
+                        break;
+                }
+            }
+            int tagEnd = Math.min(i + 1, length);
+
+            for (int[] link : links) {
+                // Links and forms without an explicit method are navigations, i.e. GET
+                context.match(link[0], link[1], method != null ? method : "GET", out);
+            }
+
+            if (tag.equals("script") || tag.equals("style")) {
+                int close = ContentRegions.indexOfIgnoreCase(html, "</" + tag, tagEnd);
+                if (close < 0) close = length;
+                if (tag.equals("script") && close > tagEnd) {
+                    if (type != null && type.contains("json")) {
+                        JsonWalkerExtractor.walk(context, tagEnd, close, out);
+                    } else if (type == null || type.isEmpty() || type.contains("javascript") || type.equals("module")) {
+                        out.addAll(context.scan(tagEnd, close));
+                    }
+                }
+                pos = close;
+            } else {
+                pos = tagEnd;
+            }
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == ':';
+    }
+
+    private static String unquote(String html, int start, int end) {
+        if (end - start >= 2 && (html.charAt(start) == '"' || html.charAt(start) == '\'')) {
+            return html.substring(start + 1, end - 1).trim();
+        }
+        return html.substring(start, end).trim();
+    }
+}
+
+// --- GRAPHQL EXTRACTOR ---
+// Named operations in scripts and persisted-query JSON ("query GetUser($id: ID!) {"),
+// and the root fields of introspection results. Both become POST findings on /graphql,
+// which the regex would only ever report once. Each operation is stored under
+// /graphql#<operation>.<name> so it stays a finding of its own; ShadowFinding.endpoint()
+// and operation() split that key, and requested() lets live traffic verify it.
+class GraphQlExtractor implements ShadowExtractor {
+
+    static final String ENDPOINT = "/graphql";
+    private static final String[] OPERATIONS = {"query", "mutation", "subscription"};
+
+    @Override
+    public String id() {
+        return "graphql";
+    }
+
+    @Override
+    public String displayName() {
+        return "GraphQL operations (named operations, introspection results)";
+    }
+
+    @Override
+    public boolean supports(ContentKind kind) {
+        return kind == ContentKind.SCRIPT || kind == ContentKind.JSON;
+    }
+
+    @Override
+    public int cost() {
+        return 5;
+    }
+
+    @Override
+    public boolean isSupplementary() {
+        return true;
+    }
+
+    // One pass that stops at the first marker, instead of a full contains() per marker
+    @Override
+    public boolean accepts(String body) {
+        int length = body.length();
+        for (int i = 0; i < length; i++) {
+            char c = body.charAt(i);
+            if (c == 'q' && body.startsWith("query ", i)) return true;
+            if (c == 'm' && body.startsWith("mutation ", i)) return true;
+            if (c == 's' && body.startsWith("subscription ", i)) return true;
+            if (c == '"' && body.startsWith("\"__schema\"", i)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void extract(ExtractionContext context, List<PathMatch> out) {
+        String body = context.body;
+        for (String operation : OPERATIONS) {
+            findOperations(body, operation, out);
+        }
+        if (body.contains("\"__schema\"")) {
+            findRootFields(body, out);
+        }
+    }
+
+    /** The finding path for an operation or root field, e.g. "/graphql#query.GetUser". */
+    static String pathOf(String operation, String name) {
+        return ENDPOINT + "#" + operation + "." + name;
+    }
+
+    /**
+     * Finding paths a GraphQL request body touches: its named operations, the root fields
+     * they select, and its operationName (under every operation type, since a persisted
+     * query sends no document). Accepts a JSON request, a batch of them, or a raw document.
+     */
+    static Set<String> requested(String body) {
+        Set<String> paths = new LinkedHashSet<>();
+        String trimmed = body.trim();
+        if (trimmed.isEmpty()) return paths;
+        if (!looksLikeJson(trimmed)) {
+            addDocument(trimmed, paths); // application/graphql, or a bare "{ user { id } }"
+            return paths;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(trimmed))) {
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) readRequest(reader, paths);
+                reader.endArray();
+            } else {
+                readRequest(reader, paths);
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // Keep whatever was read before the malformed part
+        }
+        return paths;
+    }
+
+    private static boolean looksLikeJson(String body) {
+        char first = body.charAt(0);
+        if (first == '[') return true;
+        if (first != '{') return false;
+        int i = 1;
+        while (i < body.length() && Character.isWhitespace(body.charAt(i))) i++;
+        return i == body.length() || body.charAt(i) == '"' || body.charAt(i) == '}';
+    }
+
+    private static void readRequest(JsonReader reader, Set<String> paths) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() != JsonToken.STRING) {
+                reader.skipValue();
+            } else if (key.equals("query")) {
+                addDocument(reader.nextString(), paths);
+            } else if (key.equals("operationName")) {
+                String name = reader.nextString();
+                for (String operation : OPERATIONS) paths.add(pathOf(operation, name));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    // Walks the top level of a document: each operation adds its name and root fields
+    private static void addDocument(String document, Set<String> paths) {
+        List<PathMatch> named = new ArrayList<>();
+        for (String operation : OPERATIONS) findOperations(document, operation, named);
+        for (PathMatch match : named) paths.add(match.path);
+
+        int length = document.length();
+        int i = 0;
+        String operation = "query"; // A bare selection set is a query
+        int parens = 0;
+        while (i < length) {
+            char c = document.charAt(i);
+            if (c == '"') {
+                i = skipString(document, i);
+            } else if (c == '#') {
+                while (i < length && document.charAt(i) != '\n') i++;
+            } else if (c == '(') {
+                parens++;
+                i++;
+            } else if (c == ')') {
+                parens = Math.max(0, parens - 1);
+                i++;
+            } else if (c == '{' && parens == 0) {
+                i = addRootFields(document, i, operation, paths);
+                operation = "query";
+            } else if (isIdentifierStart(c)) {
+                int start = i;
+                while (i < length && isIdentifierChar(document.charAt(i))) i++;
+                String word = document.substring(start, i);
+                if (parens == 0 && (word.equals("query") || word.equals("mutation") || word.equals("subscription"))) {
+                    operation = word;
+                } else if (parens == 0 && word.equals("fragment")) {
+                    operation = null; // Its selection set is skipped
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // Collects the fields of the selection set opening at 'open'; returns the index after it
+    private static int addRootFields(String document, int open, String operation, Set<String> paths) {
+        int length = document.length();
+        int depth = 0;
+        int parens = 0;
+        int i = open;
+        while (i < length) {
+            char c = document.charAt(i);
+            if (c == '"') {
+                i = skipString(document, i);
+                continue;
+            }
+            if (c == '#') {
+                while (i < length && document.charAt(i) != '\n') i++;
+                continue;
+            }
+            if (c == '(') {
+                parens++;
+            } else if (c == ')') {
+                parens = Math.max(0, parens - 1);
+            } else if (parens == 0 && c == '{') {
+                depth++;
+            } else if (parens == 0 && c == '}') {
+                if (--depth == 0) return i + 1;
+            } else if (parens == 0 && (c == '@' || c == '$')) {
+                i = skipName(document, i + 1); // Directives and variables are not fields
+                continue;
+            } else if (parens == 0 && c == '.') {
+                // "...Fragment" or "... on Type": neither name is a field
+                while (i < length && document.charAt(i) == '.') i++;
+                int end = skipName(document, i);
+                boolean inline = document.substring(i, end).trim().equals("on");
+                i = inline ? skipName(document, end) : end;
+                continue;
+            } else if (isIdentifierStart(c)) {
+                int start = i;
+                while (i < length && isIdentifierChar(document.charAt(i))) i++;
+                if (depth != 1 || parens != 0 || operation == null) continue;
+                int next = i;
+                while (next < length && Character.isWhitespace(document.charAt(next))) next++;
+                if (next < length && document.charAt(next) == ':') continue; // An alias; the field follows
+                String field = document.substring(start, i);
+                if (!field.startsWith("__") && !field.equals("on")) paths.add(pathOf(operation, field));
+                continue;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    // Skips leading whitespace and one name; returns the index after it
+    private static int skipName(String document, int from) {
+        int i = from;
+        while (i < document.length() && Character.isWhitespace(document.charAt(i))) i++;
+        while (i < document.length() && isIdentifierChar(document.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipString(String document, int quote) {
+        int length = document.length();
+        if (document.startsWith("\"\"\"", quote)) {
+            int close = document.indexOf("\"\"\"", quote + 3);
+            return close < 0 ? length : close + 3;
+        }
+        int i = quote + 1;
+        while (i < length && document.charAt(i) != '"') i += document.charAt(i) == '\\' ? 2 : 1;
+        return Math.min(length, i + 1);
+    }
+
+    private static void findOperations(String body, String keyword, List<PathMatch> out) {
+        int length = body.length();
+        Set<String> seen = new HashSet<>();
+        int pos = 0;
+        while (true) {
+            int at = body.indexOf(keyword, pos);
+            if (at < 0) break;
+            pos = at + keyword.length();
+            if (at > 0 && isIdentifierChar(body.charAt(at - 1)) && !isEscapedNewline(body, at)) continue;
+
+            int i = pos;
+            int gap = i;
+            while (i < length && isSpace(body, i)) i += body.charAt(i) == '\\' ? 2 : 1;
+            if (i == gap || i >= length || !isIdentifierStart(body.charAt(i))) continue;
+            int nameStart = i;
+            while (i < length && isIdentifierChar(body.charAt(i)) && body.charAt(i) != '$') i++;
+            int nameEnd = i;
+            while (i < length && isSpace(body, i)) i += body.charAt(i) == '\\' ? 2 : 1;
+            if (i >= length) continue;
+            char next = body.charAt(i);
+            if (next != '(' && next != '{' && next != '@') continue;
+
+            String name = body.substring(nameStart, nameEnd);
+            if (seen.add(name)) {
+                out.add(new PathMatch(pathOf(keyword, name), nameStart, nameEnd, "POST"));
+            }
+        }
+    }
+
+    // Streams the introspection result instead of building a tree of the whole schema:
+    // only the root type names and the field names of the root types are kept.
+    private static void findRootFields(String body, List<PathMatch> out) {
+        Map<String, String> rootTypes = new HashMap<>(); // Operation -> type name
+        Map<String, List<String>> rootFields = new HashMap<>(); // Type name -> field names
+        try (JsonReader reader = new JsonReader(new StringReader(body))) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) return;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (key.equals("data") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("__schema")) {
+                            readSchema(reader, rootTypes, rootFields);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else if (key.equals("__schema")) {
+                    readSchema(reader, rootTypes, rootFields);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            return; // Not a well-formed introspection result
+        }
+
+        int typesAt = Math.max(0, body.indexOf("\"types\""));
+        for (String operation : OPERATIONS) {
+            String typeName = rootTypes.get(operation);
+            List<String> fields = typeName != null ? rootFields.get(typeName) : null;
+            if (fields == null) continue;
+
+            // Offsets are best effort: the first occurrence after the type's own name
+            int cursor = body.indexOf("\"" + typeName + "\"", typesAt);
+            if (cursor < 0) cursor = typesAt;
+            for (String name : fields) {
+                int at = body.indexOf("\"" + name + "\"", cursor);
+                if (at < 0) at = body.indexOf("\"" + name + "\"", typesAt); // Fields listed before the name
+                int start = at < 0 ? 0 : at + 1;
+                int end = at < 0 ? 0 : start + name.length();
+                if (at >= 0) cursor = end;
+                out.add(new PathMatch(pathOf(operation, name), start, end, "POST"));
+            }
+        }
+    }
+
+    private static void readSchema(JsonReader reader, Map<String, String> rootTypes,
+                                   Map<String, List<String>> rootFields) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        int rootKeys = 0; // Once all three are known, fields of other types are skipped
+        Map<String, List<String>> pending = new HashMap<>(); // Types read before their root key
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (key.equals("queryType") || key.equals("mutationType") || key.equals("subscriptionType")) {
+                String typeName = readName(reader);
+                String operation = key.substring(0, key.length() - "Type".length());
+                if (typeName != null) rootTypes.put(operation, typeName);
+                rootKeys++;
+            } else if (key.equals("types") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) readType(reader, rootKeys == OPERATIONS.length ? rootTypes : null, pending);
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        for (String typeName : rootTypes.values()) {
+            List<String> fields = pending.get(typeName);
+            if (fields != null) rootFields.put(typeName, fields);
+        }
+    }
+
+    // Reads one entry of "types"; with 'roots' known, only root types keep their fields
+    private static void readType(JsonReader reader, Map<String, String> roots,
+                                 Map<String, List<String>> fieldsByType) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        String name = null;
+        List<String> fields = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (key.equals("name") && reader.peek() == JsonToken.STRING) {
+                name = reader.nextString();
+            } else if (key.equals("fields") && reader.peek() == JsonToken.BEGIN_ARRAY
+                    && (roots == null || name == null || roots.containsValue(name))) {
+                fields = readNames(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (name != null && fields != null && (roots == null || roots.containsValue(name))) {
+            fieldsByType.put(name, fields);
+        }
+    }
+
+    private static List<String> readNames(JsonReader reader) throws IOException {
+        List<String> names = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = readName(reader);
+            if (name != null && !name.isEmpty()) names.add(name);
+        }
+        reader.endArray();
+        return names;
+    }
+
+    // The "name" of an object such as {"name": "Query", ...}; null for anything else
+    private static String readName(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String name = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("name") && reader.peek() == JsonToken.STRING) {
+                name = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return name;
+    }
+
+    // Whitespace, including the "\n" and "\t" escapes of a document inlined as a string
+    private static boolean isSpace(String body, int i) {
+        char c = body.charAt(i);
+        if (c == ' ' || c == '\t' || c == '\n' || c == '\r') return true;
+        return c == '\\' && i + 1 < body.length() && (body.charAt(i + 1) == 'n' || body.charAt(i + 1) == 't');
+    }
+
+    private static boolean isEscapedNewline(String body, int at) {
+        return at >= 2 && body.charAt(at - 2) == '\\' && (body.charAt(at - 1) == 'n' || body.charAt(at - 1) == 't');
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9') || c == '$';
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+
+// --- SYMBOL TABLE ---
+// Interns strings to dense int ids so findings can hold a 4 byte id instead of their own
+// copy of the host or path. The same bundle served from several hosts, or a path found
+// again after a restore, shares one String. Lookups never lock; interning a new name
+// takes the table lock. Symbols are never removed (like String.intern, they live for the
+// session), which keeps ids stable for every snapshot ever handed out.
+final class Symbols {
+
+    static final Symbols HOSTS = new Symbols(64);
+    static final Symbols PATHS = new Symbols(4096);
+    static final Symbols RULES = new Symbols(64);
+    static final Symbols METHODS = new Symbols(16); // Verbs outside RequestMethod
+
+    private volatile String[] names;
+    private volatile int[] table; // Open addressing, holds id + 1; 0 marks an empty slot
+    private int size;
+
+    private Symbols(int capacity) {
+        names = new String[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+    }
+
+    /** Returns the id for {@code name}, adding it if needed. */
+    public int intern(String name) {
+        int id = find(name);
+        if (id >= 0) return id;
+        synchronized (this) {
+            id = find(name);
+            if (id >= 0) return id;
+            id = size;
+            if (id == names.length) {
+                names = Arrays.copyOf(names, id * 2);
+            }
+            names[id] = name;
+            if ((size + 1) * 2 > table.length) {
+                table = rehash(table.length * 2);
+            }
+            insert(table, name, id);
+            size++;
+            return id;
+        }
+    }
+
+    /** Returns the id for {@code name}, or -1 if it was never interned. */
+    public int find(String name) {
+        int[] slots = table;
+        String[] known = names;
+        int mask = slots.length - 1;
+        for (int i = spread(name.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) return -1;
+            int id = slot - 1;
+            // A racing intern may have filled the slot before the name; treat as a miss
+            String candidate = id < known.length ? known[id] : null;
+            if (candidate != null && candidate.equals(name)) return id;
+        }
+    }
+
+    /** The interned instance for {@code id}. */
+    public String name(int id) {
+        return names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int[] rehash(int capacity) {
+        int[] slots = new int[capacity];
+        for (int id = 0; id < size; id++) {
+            insert(slots, names[id], id);
+        }
+        return slots;
+    }
+
+    private static void insert(int[] slots, String name, int id) {
+        int mask = slots.length - 1;
+        int i = spread(name.hashCode()) & mask;
+        while (slots[i] != 0) i = (i + 1) & mask;
+        slots[i] = id + 1;
+    }
+
+    private static int spread(int h) {
+        int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+}
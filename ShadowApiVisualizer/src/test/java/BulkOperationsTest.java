@@ -0,0 +1,151 @@
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.message.MimeType;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bulk actions against the whole extension: one store publish and one session save per
+// call, and deleted endpoints stay ignored when the same traffic comes through again.
+class BulkOperationsTest {
+
+    private static final List<String> A_PATHS = List.of("/api/users", "/api/orders", "/api/admin/jobs");
+    private static final List<String> B_PATHS = List.of("/api/status");
+
+    private FakeMontoya fake;
+    private ShadowApiVisualizer extension;
+    private int messageId;
+
+    @BeforeEach
+    void discover() throws Exception {
+        FakeMontoya.installObjectFactory();
+        fake = new FakeMontoya(url -> true);
+        extension = new ShadowApiVisualizer();
+        extension.initialize(fake.api());
+        replay();
+        assertEquals(A_PATHS.size() + B_PATHS.size(), store().snapshot().size());
+    }
+
+    @Test
+    void bulkDeletePublishesOnceAndIgnoresTheKeys() throws Exception {
+        List<ShadowFinding> targets = findings("a.example");
+        targets.remove(0);
+        long publishes = store().publishCount();
+        long saves = fake.persistence.writes("shadow_session");
+
+        SwingUtilities.invokeAndWait(() -> extension.bulkDelete(targets));
+        assertEquals(publishes + 1, store().publishCount());
+        awaitDrain();
+        assertEquals(saves + 1, fake.persistence.writes("shadow_session"));
+        assertEquals(A_PATHS.size() + B_PATHS.size() - 2, store().snapshot().size());
+
+        Set<String> ignored = ignored();
+        for (ShadowFinding finding : targets) {
+            assertTrue(ignored.contains(finding.key()), finding.key());
+        }
+        assertEquals(2, deletedCount());
+
+        // The same requests again find nothing new
+        replay();
+        assertEquals(publishes + 1, store().publishCount());
+        for (ShadowFinding finding : targets) {
+            assertNull(store().snapshot().get(finding.host(), finding.path()), finding.key());
+        }
+    }
+
+    @Test
+    void bulkDeleteHostsPublishesOnceAndIgnoresEveryFinding() throws Exception {
+        List<ShadowFinding> removed = findings("a.example");
+        long publishes = store().publishCount();
+        long saves = fake.persistence.writes("shadow_session");
+
+        SwingUtilities.invokeAndWait(() -> extension.bulkDeleteHosts(List.of("a.example")));
+        assertEquals(publishes + 1, store().publishCount());
+        awaitDrain();
+        assertEquals(saves + 1, fake.persistence.writes("shadow_session"));
+        assertEquals(1, store().snapshot().hostCount());
+
+        Set<String> ignored = ignored();
+        for (ShadowFinding finding : removed) {
+            assertTrue(ignored.contains(finding.key()), finding.key());
+        }
+        assertEquals(A_PATHS.size(), deletedCount()); // Host deletes count as false positives too
+
+        replay();
+        assertEquals(publishes + 1, store().publishCount());
+        assertEquals(1, store().snapshot().hostCount());
+        assertNotNull(store().snapshot().get("b.example", B_PATHS.get(0)));
+    }
+
+    @Test
+    void bulkSetTestedPublishesOnceAndSkipsNoOps() throws Exception {
+        List<ShadowFinding> all = new ArrayList<>(findings("a.example"));
+        all.addAll(findings("b.example"));
+        long publishes = store().publishCount();
+        long saves = fake.persistence.writes("shadow_session");
+
+        SwingUtilities.invokeAndWait(() -> extension.bulkSetTested(all, true));
+        assertEquals(publishes + 1, store().publishCount());
+        awaitDrain();
+        assertEquals(saves + 1, fake.persistence.writes("shadow_session"));
+        assertEquals(all.size(), store().snapshot().global.count(FindingStatus.VERIFIED));
+
+        // Nothing changes, so nothing is published or saved
+        SwingUtilities.invokeAndWait(() -> extension.bulkSetTested(all, true));
+        awaitDrain();
+        assertEquals(publishes + 1, store().publishCount());
+        assertEquals(saves + 1, fake.persistence.writes("shadow_session"));
+    }
+
+    private FindingStore store() {
+        return extension.findingStore();
+    }
+
+    private List<ShadowFinding> findings(String host) {
+        List<ShadowFinding> findings = new ArrayList<>();
+        store().snapshot().findings(host).forEach(findings::add);
+        return findings;
+    }
+
+    // Sends every request through the proxy handler, then waits for saves and tree updates
+    private void replay() throws Exception {
+        for (String path : A_PATHS) send("a.example", path);
+        for (String path : B_PATHS) send("b.example", path);
+        awaitDrain();
+    }
+
+    private void send(String host, String path) {
+        TrafficCorpus.Exchange exchange = new TrafficCorpus.Exchange("api", true, host, 443, "GET", path, 200,
+                "application/json", MimeType.JSON, new byte[0]);
+        fake.handler.handleHttpRequestToBeSent(FakeMontoya.request(HttpRequestToBeSent.class, exchange, ++messageId));
+    }
+
+    private void awaitDrain() throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!extension.isSaveDrained()) {
+            assertTrue(System.currentTimeMillis() < deadline, "save did not drain");
+            Thread.sleep(5);
+        }
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+
+    private Set<String> ignored() {
+        return new Gson().fromJson(fake.persistence.strings.get("shadow_ignored"), new TypeToken<Set<String>>(){}.getType());
+    }
+
+    private long deletedCount() {
+        List<PatternStatsDTO> stats = new Gson().fromJson(fake.persistence.strings.get("shadow_pattern_stats"),
+                new TypeToken<List<PatternStatsDTO>>(){}.getType());
+        return stats.stream().mapToLong(s -> s.deleted).sum();
+    }
+}
@@ -0,0 +1,144 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Content-defined chunks and the per-chunk cache behind PathScanner.scanIncremental:
+// whatever is cached, the result must equal a fresh serial scan.
+class ChunkCacheTest {
+
+    private static PathScanner scanner;
+
+    @BeforeAll
+    static void start() {
+        scanner = new PathScanner(4);
+    }
+
+    @AfterAll
+    static void stop() {
+        scanner.shutdown();
+    }
+
+    @Test
+    void boundariesCoverTheRegionWithinChunkLimits() {
+        String body = PathScannerTest.bundle(3 * 1024 * 1024, 11);
+        int from = 1000;
+        int to = body.length() - 1000;
+        int[] cuts = ContentChunker.boundaries(body, from, to);
+
+        assertEquals(from, cuts[0]);
+        assertEquals(to, cuts[cuts.length - 1]);
+        for (int i = 0; i + 1 < cuts.length; i++) {
+            int length = cuts[i + 1] - cuts[i];
+            assertTrue(length <= ContentChunker.MAX_CHUNK, "chunk " + i + " is " + length);
+            if (i + 2 < cuts.length) {
+                assertTrue(length >= ContentChunker.MIN_CHUNK, "chunk " + i + " is " + length);
+            }
+        }
+    }
+
+    @Test
+    void smallEditOnlyMovesNearbyCuts() {
+        String body = PathScannerTest.bundle(2 * 1024 * 1024, 12);
+        int at = body.length() / 2;
+        String edited = body.substring(0, at) + "/* build 1234 */" + body.substring(at);
+        int shift = edited.length() - body.length();
+
+        Set<Integer> before = new HashSet<>();
+        for (int cut : ContentChunker.boundaries(body, 0, body.length())) {
+            before.add(cut < at ? cut : cut + shift);
+        }
+        int[] after = ContentChunker.boundaries(edited, 0, edited.length());
+        int moved = 0;
+        for (int cut : after) {
+            if (!before.contains(cut)) moved++;
+        }
+        assertTrue(moved <= 2, moved + " of " + after.length + " cuts moved");
+    }
+
+    @Test
+    void incrementalMatchesSerialAcrossVersions() {
+        ChunkCache cache = new ChunkCache(8192);
+        Random random = new Random(13);
+        String body = PathScannerTest.bundle(6 * 1024 * 1024, 13);
+        for (int version = 0; version < 5; version++) {
+            assertSameAsSerial(PathScannerTest.PATTERN, body, cache, version % 2 == 0);
+            body = edit(body, random);
+        }
+        assertTrue(cache.hits() > 0);
+    }
+
+    @Test
+    void editedBundleReusesMostChunks() {
+        ChunkCache cache = new ChunkCache(8192);
+        String body = PathScannerTest.bundle(2 * 1024 * 1024, 14);
+        scanner.scanIncremental(PathScannerTest.PATTERN, body, 0, body.length(), cache, false);
+        long hits = cache.hits();
+        long misses = cache.misses();
+
+        String edited = edit(body, new Random(14));
+        int chunks = ContentChunker.boundaries(edited, 0, edited.length()).length - 1;
+        assertSameAsSerial(PathScannerTest.PATTERN, edited, cache, false);
+        long newMisses = cache.misses() - misses;
+        assertTrue(newMisses <= 3, newMisses + " of " + chunks + " chunks missed");
+        assertEquals(chunks, cache.hits() - hits + newMisses);
+    }
+
+    @Test
+    void bindingAnotherPatternDropsCachedResults() {
+        ChunkCache cache = new ChunkCache(8192);
+        String body = PathScannerTest.bundle(512 * 1024, 15);
+        scanner.scanIncremental(PathScannerTest.PATTERN, body, 0, body.length(), cache, false);
+        assertTrue(cache.size() > 0);
+
+        Pattern other = Pattern.compile("['\"](\\/v[0-9]+\\/[a-z0-9]+)", Pattern.CASE_INSENSITIVE);
+        cache.bind(other);
+        assertEquals(0, cache.size());
+        long hits = cache.hits();
+        assertSameAsSerial(other, body, cache, false);
+        assertEquals(hits, cache.hits());
+    }
+
+    @Test
+    void matchRunningPastTheLookAheadIsNotCached() {
+        // A path longer than the overlap window starts near the end of the first chunk
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < ContentChunker.MAX_CHUNK - 100) sb.append("x ");
+        sb.append("\"/api/");
+        for (int i = 0; i < PathScanner.OVERLAP * 2; i++) sb.append('a');
+        sb.append("\"; ");
+        while (sb.length() < ContentChunker.MAX_CHUNK * 3) sb.append("y ");
+        String body = sb.toString();
+
+        ChunkCache cache = new ChunkCache(8192);
+        assertSameAsSerial(PathScannerTest.PATTERN, body, cache, false);
+        // The tail of the long path changes; the first chunk's text and look-ahead do not
+        String changed = body.replace("a\"; ", "b\"; ");
+        assertSameAsSerial(PathScannerTest.PATTERN, changed, cache, false);
+    }
+
+    private static void assertSameAsSerial(Pattern pattern, String body, ChunkCache cache, boolean parallel) {
+        List<String> serial = PathScannerTest.describe(scanner.scanSerial(pattern, body, 0, body.length()));
+        List<String> incremental = PathScannerTest.describe(
+                scanner.scanIncremental(pattern, body, 0, body.length(), cache, parallel));
+        assertEquals(serial, incremental);
+    }
+
+    // A new build of the bundle: one statement inserted, one path renamed
+    private static String edit(String body, Random random) {
+        int insertAt = body.indexOf(';', random.nextInt(body.length() / 2)) + 1;
+        String inserted = body.substring(0, insertAt) + "fetch(\"/api/added/" + random.nextInt(1000) + "\");"
+                + body.substring(insertAt);
+        int renameAt = inserted.indexOf("/api/", inserted.length() / 2 + random.nextInt(inserted.length() / 4));
+        if (renameAt < 0) return inserted;
+        return inserted.substring(0, renameAt) + "/api/renamed" + inserted.substring(renameAt + 4);
+    }
+}
@@ -0,0 +1,121 @@
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.MimeType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Each signal in the order classify() consults them: Content-Type, URL extension,
+// Burp's inferred MIME type, then a sniff of the first SNIFF_BYTES of the body.
+class ContentClassifierTest {
+
+    @Test
+    void contentTypeWinsOverEverythingElse() {
+        assertEquals(ContentKind.SCRIPT, classify("application/javascript; charset=utf-8", "/page.html", MimeType.HTML, "<html>"));
+        assertEquals(ContentKind.HTML, classify("text/html", "/app.js", MimeType.SCRIPT, "var a;"));
+        assertEquals(ContentKind.JSON, classify("application/problem+json", null, MimeType.NONE, "x"));
+        assertEquals(ContentKind.BINARY, classify("image/png", "/app.js", MimeType.SCRIPT, "var a;"));
+        assertEquals(ContentKind.OTHER, classify("text/css", "/app.js", MimeType.SCRIPT, "var a;"));
+    }
+
+    @Test
+    void extensionDecidesWhenContentTypeIsVague() {
+        assertEquals(ContentKind.SCRIPT, classify("text/plain", "/static/app.mjs?v=3", MimeType.HTML, "<html>"));
+        assertEquals(ContentKind.JSON, classify(null, "/static/app.js.map", MimeType.NONE, "x"));
+        assertEquals(ContentKind.BINARY, classify(null, "/fonts/a.woff2", MimeType.NONE, "var a;"));
+        assertEquals(ContentKind.OTHER, classify(null, "/logo.svg", MimeType.SCRIPT, "var a;"));
+        // A dot in a directory name is not an extension
+        assertEquals(ContentKind.HTML, classify(null, "/v1.2/page", MimeType.HTML, "x"));
+    }
+
+    @Test
+    void inferredMimeTypeDecidesNext() {
+        assertEquals(ContentKind.SCRIPT, classify(null, "/bundle", MimeType.SCRIPT, "<html>"));
+        assertEquals(ContentKind.JSON, classify(null, "/data", MimeType.JSON, "var a;"));
+        assertEquals(ContentKind.BINARY, classify(null, "/blob", MimeType.IMAGE_PNG, "var a;"));
+        assertEquals(ContentKind.OTHER, classify(null, "/feed", MimeType.XML, "var a;"));
+        assertEquals(ContentKind.SCRIPT, classify(null, "/plain", MimeType.PLAIN_TEXT, "window.x = 1;"));
+    }
+
+    @Test
+    void sniffRecognisesTextKinds() {
+        assertEquals(ContentKind.HTML, sniff("\uFEFF  <!DOCTYPE html><html></html>"));
+        assertEquals(ContentKind.HTML, sniff("<div><script>go()</script></div>"));
+        assertEquals(ContentKind.OTHER, sniff("<?xml version=\"1.0\"?><feed/>"));
+        assertEquals(ContentKind.JSON, sniff("{\"url\": \"/api/users\", \"n\": 1e5, \"ok\": true}"));
+        assertEquals(ContentKind.JSON, sniff("[{\"id\": 1}, null, -2]"));
+        assertEquals(ContentKind.SCRIPT, sniff("(function(){ fetch('/api/x') })()"));
+        assertEquals(ContentKind.OTHER, sniff("just some words"));
+        assertEquals(ContentKind.OTHER, sniff("   \n\t "));
+        assertEquals(ContentKind.OTHER, ContentClassifier.sniff(FakeMontoya.byteArray(new byte[0])));
+    }
+
+    @Test
+    void sniffRejectsBinaryEarly() {
+        assertEquals(ContentKind.BINARY, ContentClassifier.sniff(FakeMontoya.byteArray(new byte[]{'v', 'a', 'r', 0, ' '})));
+        byte[] controls = new byte[100];
+        for (int i = 0; i < controls.length; i++) controls[i] = (byte) (i % 3 == 0 ? 0x01 : 'a');
+        assertEquals(ContentKind.BINARY, ContentClassifier.sniff(FakeMontoya.byteArray(controls)));
+    }
+
+    @Test
+    void sniffOnlyReadsTheFirstWindow() {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < ContentClassifier.SNIFF_BYTES) text.append("lorem ipsum ");
+        String body = text + "var late = '/api/x';\u0000";
+        // The script hint and the NUL byte both lie past the window
+        assertEquals(ContentKind.OTHER, sniff(body));
+
+        // Large bodies are read through subArray, never copied whole
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        ByteArray whole = FakeMontoya.byteArray(bytes);
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("length", args -> bytes.length);
+        methods.put("subArray", args -> whole.subArray((int) args[0], (int) args[1]));
+        methods.put("getBytes", args -> {
+            throw new AssertionError("whole body copied");
+        });
+        assertEquals(ContentKind.OTHER, ContentClassifier.sniff(FakeMontoya.stub(ByteArray.class, methods)));
+    }
+
+    @Test
+    void bracketedBundlesAreScriptsNotJson() {
+        assertEquals(ContentKind.SCRIPT, sniff("[1,2,3].forEach(function(n){ fetch('/api/' + n) })"));
+        assertEquals(ContentKind.SCRIPT, sniff("(self.webpackChunk=self.webpackChunk||[]).push([[1],{}])"));
+        assertEquals(ContentKind.SCRIPT, sniff("[\"a\"].map(x => x)"));
+        assertEquals(ContentKind.SCRIPT, sniff("{\"a\": 1}; var b = 2"));
+    }
+
+    @Test
+    void scriptTokensOutsideStrings() {
+        assertFalse(ContentClassifier.hasScriptToken("{\"key\": \"var x = call();\", \"n\": -1.5e+3, \"t\": [true, false, null]}"));
+        assertFalse(ContentClassifier.hasScriptToken("{\"escaped\": \"a \\\" b; c()\"}"));
+        assertTrue(ContentClassifier.hasScriptToken("[1].map(f)"));
+        assertTrue(ContentClassifier.hasScriptToken("{\"a\": 1} = x"));
+        assertTrue(ContentClassifier.hasScriptToken("[undefined, 1]"));
+        // A word cut off by the end of the window is not conclusive
+        assertFalse(ContentClassifier.hasScriptToken("[1, 2, undefin"));
+    }
+
+    private static ContentKind classify(String contentType, String path, MimeType mimeType, String body) {
+        Map<String, Function<Object[], Object>> response = new HashMap<>();
+        response.put("headerValue", args -> "Content-Type".equalsIgnoreCase((String) args[0]) ? contentType : null);
+        response.put("inferredMimeType", args -> mimeType);
+        response.put("body", args -> FakeMontoya.byteArray(body.getBytes(StandardCharsets.ISO_8859_1)));
+        HttpRequest request = path == null ? null
+                : FakeMontoya.stub(HttpRequest.class, Map.<String, Function<Object[], Object>>of("path", args -> path));
+        return ContentClassifier.classify(FakeMontoya.stub(HttpResponse.class, response), request);
+    }
+
+    private static ContentKind sniff(String body) {
+        return ContentClassifier.sniff(FakeMontoya.byteArray(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,147 @@
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Path templating and the shape of the CSV and OpenAPI files written from a small store.
+class ExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pathTemplatesReplaceIdentifierSegments() {
+        assertEquals("/api/users/{id}", ShadowExporter.toPathTemplate("/api/users/123"));
+        assertEquals("/api/orders/{id}", ShadowExporter.toPathTemplate("/api/orders/3f2b8c1e-9a4d-4e6f-8b7a-0c1d2e3f4a5b"));
+        assertEquals("/api/blobs/{id}", ShadowExporter.toPathTemplate("/api/blobs/deadbeefcafef00d"));
+        assertEquals("/api/blobs/cafe", ShadowExporter.toPathTemplate("/api/blobs/cafe"));
+        assertEquals("/api/users/{userId}/posts", ShadowExporter.toPathTemplate("/api/users/:userId/posts"));
+        assertEquals("/api/users/{userId}", ShadowExporter.toPathTemplate("/api/users/{userId}"));
+        assertEquals("/v1/items", ShadowExporter.toPathTemplate("/v1/items/"));
+        assertEquals("/", ShadowExporter.toPathTemplate("/"));
+    }
+
+    @Test
+    void pathTemplateNamesAreUnique() {
+        assertEquals("/api/a/{id}/b/{id2}/c/{id3}", ShadowExporter.toPathTemplate("/api/a/1/b/2/c/3"));
+        assertEquals("/api/a/{id}/b/{id2}", ShadowExporter.toPathTemplate("/api/a/{id}/b/42"));
+        assertEquals("/api/a/{id}/b/{id2}", ShadowExporter.toPathTemplate("/api/a/:id/b/:id"));
+    }
+
+    @Test
+    void pathTemplatesDropQueryAndFragment() {
+        assertEquals("/api/users/{id}", ShadowExporter.toPathTemplate("/api/users/7?expand=true#top"));
+        assertEquals("/api/search", ShadowExporter.toPathTemplate("/api/search?q=a/b"));
+        assertEquals("/graphql", ShadowExporter.toPathTemplate("/graphql#query.GetUser"));
+    }
+
+    @Test
+    void operationKeysAreValidPathItemFields() {
+        assertEquals("get", ShadowExporter.operationKey(null));
+        assertEquals("post", ShadowExporter.operationKey("POST"));
+        assertEquals("trace", ShadowExporter.operationKey("TRACE"));
+        assertEquals("x-method-connect", ShadowExporter.operationKey("CONNECT"));
+        assertEquals("x-method-propfind", ShadowExporter.operationKey("PROPFIND"));
+    }
+
+    @Test
+    void csvQuotesFieldsAndSplitsGraphQlOperations() throws IOException {
+        FindingStore store = new FindingStore();
+        HttpRequestResponse source = source("app.example", 443, true, "/static/app,v2.js");
+        int sourceId = store.newSourceId();
+        store.add(new ShadowFinding("app.example", "/api/a,b", "GET", sourceId, 10, 18, ShadowFinding.HAS_RESPONSE), source);
+        store.add(new ShadowFinding("app.example", "/api/say\"hi\"", null, sourceId, 20, 32, ShadowFinding.HAS_RESPONSE), source);
+        store.add(new ShadowFinding("app.example", "/graphql#query.GetUser", "POST", sourceId, 40, 47,
+                ShadowFinding.HAS_RESPONSE | ShadowFinding.TESTED), source);
+
+        List<String> lines = export(store, ExportFormat.CSV);
+        assertEquals("host,method,path,status,source,start,end,operation", lines.get(0));
+        assertEquals(Set.of(
+                "app.example,GET,\"/api/a,b\",Untested,\"/static/app,v2.js\",10,18,",
+                "app.example,,\"/api/say\"\"hi\"\"\",Untested,\"/static/app,v2.js\",20,32,",
+                "app.example,POST,/graphql,Tested,\"/static/app,v2.js\",40,47,query GetUser"),
+                new HashSet<>(lines.subList(1, lines.size())));
+    }
+
+    @Test
+    void openApiGroupsTemplatesWithServersAndMethods() throws IOException {
+        FindingStore store = new FindingStore();
+        HttpRequestResponse secure = source("a.example", 8443, true, "/app.js");
+        HttpRequestResponse plain = source("b.example", 80, false, "/app.js");
+        int a = store.newSourceId();
+        int b = store.newSourceId();
+        store.add(new ShadowFinding("a.example", "/api/users/1", "GET", a, 0, 1, 0), secure);
+        store.add(new ShadowFinding("a.example", "/api/users/2", "DELETE", a, 0, 1, 0), secure);
+        store.add(new ShadowFinding("b.example", "/api/users/:id", null, b, 0, 1, 0), plain);
+        store.add(new ShadowFinding("b.example", "/api/tunnel", "CONNECT", b, 0, 1, 0), plain);
+        store.add(new ShadowFinding("a.example", "/graphql#query.GetUser", "POST", a, 0, 1, 0), secure);
+        store.add(new ShadowFinding("a.example", "/graphql#mutation.SaveUser", "POST", a, 0, 1, 0), secure);
+
+        JsonObject document = JsonParser.parseString(String.join("\n", export(store, ExportFormat.OPENAPI))).getAsJsonObject();
+        assertEquals("3.0.3", document.get("openapi").getAsString());
+        JsonObject paths = document.getAsJsonObject("paths");
+        assertEquals(Set.of("/api/users/{id}", "/api/tunnel", "/graphql"), paths.keySet());
+
+        JsonObject users = paths.getAsJsonObject("/api/users/{id}");
+        assertEquals(Set.of("servers", "get", "delete"), users.keySet());
+        assertEquals(Set.of("https://a.example:8443", "http://b.example"), urls(users.getAsJsonArray("servers")));
+        assertEquals(Set.of("a.example", "b.example"), strings(users.getAsJsonObject("get").getAsJsonArray("tags")));
+        assertEquals(Set.of("a.example"), strings(users.getAsJsonObject("delete").getAsJsonArray("tags")));
+        JsonObject parameter = users.getAsJsonObject("get").getAsJsonArray("parameters").get(0).getAsJsonObject();
+        assertEquals("id", parameter.get("name").getAsString());
+        assertEquals("path", parameter.get("in").getAsString());
+
+        assertEquals(Set.of("servers", "x-method-connect"), paths.getAsJsonObject("/api/tunnel").keySet());
+
+        JsonObject graphQl = paths.getAsJsonObject("/graphql");
+        assertEquals(Set.of("servers", "post"), graphQl.keySet());
+        assertEquals(Set.of("mutation SaveUser", "query GetUser"),
+                strings(graphQl.getAsJsonObject("post").getAsJsonArray("x-graphql-operations")));
+        assertFalse(graphQl.getAsJsonObject("post").has("x-method-post"));
+        assertTrue(graphQl.getAsJsonObject("post").has("responses"));
+    }
+
+    private List<String> export(FindingStore store, ExportFormat format) throws IOException {
+        File file = dir.resolve("export." + format.extension).toFile();
+        FindingSnapshot snapshot = store.snapshot();
+        new ShadowExporter(snapshot).export(snapshot.findings(), f -> true, format, file);
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    private static HttpRequestResponse source(String host, int port, boolean secure, String path) {
+        HttpRequest request = FakeMontoya.stub(HttpRequest.class, Map.<String, Function<Object[], Object>>of(
+                "httpService", args -> FakeMontoya.httpService(host, port, secure),
+                "path", args -> path));
+        return FakeMontoya.requestResponse(request, null);
+    }
+
+    private static Set<String> urls(JsonArray servers) {
+        Set<String> urls = new HashSet<>();
+        servers.forEach(server -> urls.add(server.getAsJsonObject().get("url").getAsString()));
+        return urls;
+    }
+
+    private static Set<String> strings(JsonArray array) {
+        Set<String> values = new HashSet<>();
+        array.forEach(value -> values.add(value.getAsString()));
+        return values;
+    }
+}
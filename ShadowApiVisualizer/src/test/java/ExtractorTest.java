@@ -0,0 +1,212 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Each extractor over small hand-written bodies, and the registry's choice between them.
+class ExtractorTest {
+
+    private static PathScanner scanner;
+
+    @BeforeAll
+    static void start() {
+        scanner = new PathScanner(1);
+    }
+
+    @AfterAll
+    static void stop() {
+        scanner.shutdown();
+    }
+
+    @Test
+    void jsonWalkerMatchesStringValuesOnly() {
+        String json = "{\"/api/key\": \"plain\", \"url\": \"/api/users\", \"count\": 5, \"ok\": true,"
+                + " \"list\": [\"/v1/items\", {\"next\": \"/admin/panel\"}], \"note\": \"see /api\"}";
+        assertEquals(List.of("/api/users", "/v1/items", "/admin/panel"),
+                paths(new JsonWalkerExtractor(), ContentKind.JSON, json));
+    }
+
+    @Test
+    void jsonWalkerDecodesEscapedStrings() {
+        String json = "{\"a\": \"\\/api\\/escaped\\/path\", \"b\": \"\\/v2\\u002funicode\", \"c\": \"say \\\"/api/quoted\\\"\"}";
+        List<PathMatch> matches = extract(new JsonWalkerExtractor(), ContentKind.JSON, json);
+        assertEquals(List.of("/api/escaped/path", "/v2/unicode", "/api/quoted"), paths(matches));
+        // Decoded matches point at the whole string value in the raw body
+        PathMatch first = matches.get(0);
+        assertEquals("\"\\/api\\/escaped\\/path\"", json.substring(first.start, first.end));
+    }
+
+    @Test
+    void jsonWalkerFollowsNestedArrays() {
+        String deep = "[".repeat(40) + "\"/api/deep\"" + "]".repeat(40);
+        String json = "[[[\"/api/one\"]], [{\"k\": [[\"/v2/two\"]], \"/api/not-a-value\": 1}], " + deep + "]";
+        assertEquals(List.of("/api/one", "/v2/two", "/api/deep"),
+                paths(new JsonWalkerExtractor(), ContentKind.JSON, json));
+    }
+
+    @Test
+    void htmlTokenizerReadsLinksFormsAndInlineScripts() {
+        String html = "<html><head><script src=\"/api/external\"></script>"
+                + "<style>a { background: url('/api/style'); }</style></head><body>"
+                + "<a href=\"/api/link\">link</a>"
+                + "<form action='/api/submit' method=\"post\"><button formaction=/v1/alt formmethod=put>go</button></form>"
+                + "<!-- <a href=\"/api/commented\">old</a> -->"
+                + "<script>fetch(\"/api/inline\")</script>"
+                + "<script type=\"application/json\">{\"next\": \"\\/v1\\/json\", \"/api/key\": 1}</script>"
+                + "<script type=\"text/template\">\"/api/template\"</script>"
+                + "</body></html>";
+        List<PathMatch> matches = extract(new HtmlTokenizerExtractor(), ContentKind.HTML, html);
+        assertEquals(List.of("/api/link GET", "/api/submit POST", "/v1/alt PUT", "/api/inline null", "/v1/json null"),
+                withMethods(matches));
+    }
+
+    @Test
+    void selectPicksCheapestAcceptingPrimary() {
+        ExtractorRegistry registry = ExtractorRegistry.defaults();
+        assertEquals(List.of("json"), ids(registry.select(ContentKind.JSON, "{\"a\": \"/api/x\"}")));
+        assertEquals(List.of("html"), ids(registry.select(ContentKind.HTML, "<a href=\"/api/x\">")));
+        assertEquals(List.of("regex", "graphql"), ids(registry.select(ContentKind.SCRIPT, "gql`query GetUser { me }`")));
+        assertTrue(registry.select(ContentKind.BINARY, "\u0000").isEmpty());
+
+        // A cheaper extractor that declines the body falls through to the next one
+        ExtractorRegistry custom = new ExtractorRegistry(List.of(
+                new RegexExtractor(), new JsonWalkerExtractor(), new Picky()));
+        assertEquals(List.of("picky"), ids(custom.select(ContentKind.JSON, "picky {}")));
+        assertEquals(List.of("json"), ids(custom.select(ContentKind.JSON, "{}")));
+    }
+
+    @Test
+    void selectRespectsDisabledExtractors() {
+        ExtractorRegistry registry = ExtractorRegistry.defaults();
+        registry.setDisabled(List.of("json"));
+        assertFalse(registry.isEnabled("json"));
+        assertEquals(List.of("regex"), ids(registry.select(ContentKind.JSON, "{\"a\": \"/api/x\"}")));
+
+        registry.setDisabled(List.of("json", "regex", "graphql"));
+        assertTrue(registry.select(ContentKind.JSON, "{\"query\": \"query GetUser { me }\"}").isEmpty());
+        assertTrue(registry.select(ContentKind.SCRIPT, "query GetUser { me }").isEmpty());
+
+        registry.setDisabled(List.of());
+        assertEquals(List.of("json", "graphql"), ids(registry.select(ContentKind.JSON, "{\"query\": \"query GetUser { me }\"}")));
+    }
+
+    @Test
+    void graphQlFindsNamedOperations() {
+        String script = "const A = gql`query GetUser($id: ID!) { user(id: $id) { id } }`;"
+                + "const B = \"mutation UpdateUser @auth {\\n  updateUser { id }\\n}\";"
+                + "const C = gql`subscription OnEvent { event }`;"
+                + "const D = gql`query GetUser { user { name } }`;"
+                + "var queryPlan = 1; var subquery Foo = 2;";
+        GraphQlExtractor extractor = new GraphQlExtractor();
+        assertTrue(extractor.accepts(script));
+        assertFalse(extractor.accepts("var queryPlan = fetch('/api/query');"));
+
+        List<PathMatch> matches = extract(extractor, ContentKind.SCRIPT, script);
+        assertEquals(List.of("/graphql#query.GetUser POST", "/graphql#mutation.UpdateUser POST",
+                "/graphql#subscription.OnEvent POST"), withMethods(matches));
+        assertEquals("GetUser", script.substring(matches.get(0).start, matches.get(0).end));
+    }
+
+    @Test
+    void graphQlReadsRootFieldsOfIntrospectionResults() {
+        String result = "{\"data\": {\"__schema\": {"
+                + "\"queryType\": {\"name\": \"Query\"}, \"mutationType\": {\"name\": \"Mutation\"}, \"subscriptionType\": null,"
+                + "\"types\": ["
+                + "{\"kind\": \"OBJECT\", \"name\": \"Query\", \"fields\": [{\"name\": \"user\", \"args\": []}, {\"name\": \"users\"}]},"
+                + "{\"kind\": \"OBJECT\", \"name\": \"User\", \"fields\": [{\"name\": \"id\"}]},"
+                + "{\"kind\": \"OBJECT\", \"name\": \"Mutation\", \"fields\": [{\"name\": \"createUser\"}]}"
+                + "]}}}";
+        GraphQlExtractor extractor = new GraphQlExtractor();
+        assertTrue(extractor.accepts(result));
+        assertEquals(List.of("/graphql#query.user", "/graphql#query.users", "/graphql#mutation.createUser"),
+                paths(extractor, ContentKind.JSON, result));
+
+        // Types listed before the root type keys, and no "data" wrapper
+        String reordered = "{\"__schema\": {\"types\": ["
+                + "{\"name\": \"Other\", \"fields\": [{\"name\": \"ignored\"}]},"
+                + "{\"name\": \"Root\", \"fields\": [{\"name\": \"me\"}]}"
+                + "], \"queryType\": {\"name\": \"Root\"}}}";
+        assertEquals(List.of("/graphql#query.me"), paths(extractor, ContentKind.JSON, reordered));
+
+        assertTrue(paths(extractor, ContentKind.JSON, "{\"__schema\": [1, 2").isEmpty());
+    }
+
+    @Test
+    void graphQlRequestsNameTheirOperationsAndRootFields() {
+        assertEquals(Set.of("/graphql#query.GetUser", "/graphql#query.user", "/graphql#query.viewer"),
+                GraphQlExtractor.requested("{\"query\": \"query GetUser($id: ID!) { user(id: $id) { id } me: viewer { id } ...Extra }\"}"));
+        assertEquals(Set.of("/graphql#mutation.Save", "/graphql#mutation.save", "/graphql#query.me"),
+                GraphQlExtractor.requested("[{\"query\": \"mutation Save { save(input: {a: 1}) { ok } }\"}, {\"query\": \"{ me { id } }\"}]"));
+        assertEquals(Set.of("/graphql#query.Persisted", "/graphql#mutation.Persisted", "/graphql#subscription.Persisted"),
+                GraphQlExtractor.requested("{\"operationName\": \"Persisted\", \"extensions\": {\"persistedQuery\": {}}}"));
+        assertEquals(Set.of("/graphql#query.user"), GraphQlExtractor.requested("{ user { id } } fragment F on User { secret }"));
+    }
+
+    /** Cost 1 primary for JSON that only takes bodies starting with "picky". */
+    private static final class Picky implements ShadowExtractor {
+        @Override
+        public String id() {
+            return "picky";
+        }
+
+        @Override
+        public String displayName() {
+            return "Picky";
+        }
+
+        @Override
+        public boolean supports(ContentKind kind) {
+            return kind == ContentKind.JSON;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public boolean accepts(String body) {
+            return body.startsWith("picky");
+        }
+
+        @Override
+        public void extract(ExtractionContext context, List<PathMatch> out) {
+        }
+    }
+
+    private static List<PathMatch> extract(ShadowExtractor extractor, ContentKind kind, String body) {
+        ExtractionContext context = new ExtractionContext(body, kind, PathScannerTest.PATTERN, scanner, null, Long.MAX_VALUE);
+        List<PathMatch> out = new ArrayList<>();
+        extractor.extract(context, out);
+        return out;
+    }
+
+    private static List<String> paths(ShadowExtractor extractor, ContentKind kind, String body) {
+        return paths(extract(extractor, kind, body));
+    }
+
+    private static List<String> paths(List<PathMatch> matches) {
+        List<String> paths = new ArrayList<>();
+        for (PathMatch match : matches) paths.add(match.path);
+        return paths;
+    }
+
+    private static List<String> withMethods(List<PathMatch> matches) {
+        List<String> described = new ArrayList<>();
+        for (PathMatch match : matches) described.add(match.path + " " + match.method);
+        return described;
+    }
+
+    private static List<String> ids(List<ShadowExtractor> extractors) {
+        List<String> ids = new ArrayList<>();
+        for (ShadowExtractor extractor : extractors) ids.add(extractor.id());
+        return ids;
+    }
+}
@@ -0,0 +1,119 @@
+import burp.api.montoya.http.message.HttpRequestResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Shared sources are counted per finding and dropped with the last one; compact
+// findings keep every method they were given.
+class FindingSnapshotTest {
+
+    private static final HttpRequestResponse FIRST = FakeMontoya.requestResponse(null, null);
+    private static final HttpRequestResponse SECOND = FakeMontoya.requestResponse(null, null);
+
+    @Test
+    void sharedSourceIsReleasedWithItsLastFinding() {
+        FindingSnapshot snapshot = FindingSnapshot.EMPTY
+                .with(finding("a.example", "/api/one", 1), FIRST)
+                .with(finding("a.example", "/api/two", 1), null) // Known id: no traffic needed
+                .with(finding("a.example", "/api/three", 2), SECOND);
+        assertEquals(Set.of(1, 2), sourceIds(snapshot));
+        assertEquals(2, snapshot.sources.get(1).refs);
+        assertSame(FIRST, snapshot.source(1));
+
+        snapshot = snapshot.without("a.example", "/api/one");
+        assertEquals(1, snapshot.sources.get(1).refs);
+        assertSame(FIRST, snapshot.source(1));
+
+        snapshot = snapshot.without("a.example", "/api/two");
+        assertNull(snapshot.source(1));
+        assertEquals(Set.of(2), sourceIds(snapshot));
+
+        // Removing what is not there changes nothing
+        assertSame(snapshot, snapshot.without("a.example", "/api/two"));
+        assertSame(snapshot, snapshot.without("b.example", "/api/three"));
+    }
+
+    @Test
+    void updatesKeepOrMoveTheirSource() {
+        ShadowFinding one = finding("a.example", "/api/one", 1);
+        FindingSnapshot snapshot = FindingSnapshot.EMPTY.with(one, FIRST).with(finding("a.example", "/api/two", 1), null);
+
+        // A status change keeps the same source and its count
+        snapshot = snapshot.with(one.withTested(true), null);
+        assertEquals(2, snapshot.sources.get(1).refs);
+
+        // Pointing a finding at new traffic retains the new source and releases the old one
+        snapshot = snapshot.with(snapshot.get("a.example", "/api/one").withSource(2, true), SECOND);
+        assertEquals(1, snapshot.sources.get(1).refs);
+        assertEquals(1, snapshot.sources.get(2).refs);
+        snapshot = snapshot.with(snapshot.get("a.example", "/api/two").withSource(2, true), null);
+        assertEquals(Set.of(2), sourceIds(snapshot));
+        assertEquals(2, snapshot.sources.get(2).refs);
+    }
+
+    @Test
+    void unknownSourceWithoutTrafficIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FindingSnapshot.EMPTY.with(finding("a.example", "/api/one", 9), null));
+    }
+
+    @Test
+    void hostRemovalReleasesOnlyItsOwnReferences() {
+        FindingSnapshot snapshot = FindingSnapshot.EMPTY
+                .with(finding("a.example", "/api/one", 1), FIRST)
+                .with(finding("a.example", "/api/two", 1), null)
+                .with(finding("b.example", "/api/one", 1), null)
+                .with(finding("a.example", "/api/three", 2), SECOND);
+        assertEquals(3, snapshot.sources.get(1).refs);
+
+        snapshot = snapshot.withoutHost("a.example");
+        assertEquals(Set.of(1), sourceIds(snapshot));
+        assertEquals(1, snapshot.sources.get(1).refs);
+        assertEquals(1, snapshot.size());
+
+        snapshot = snapshot.withoutHost("b.example");
+        assertEquals(Set.of(), sourceIds(snapshot));
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.hostCount());
+    }
+
+    @Test
+    void customVerbsKeepTheirName() {
+        ShadowFinding propfind = new ShadowFinding("a.example", "/dav/one", "PROPFIND", 1, 0, 0, 0);
+        ShadowFinding mkcol = new ShadowFinding("a.example", "/dav/one", "MKCOL", 1, 0, 0, 0);
+        assertEquals("PROPFIND", propfind.method());
+        assertEquals(RequestMethod.OTHER, propfind.requestMethod());
+        assertNotEquals(propfind.methodCode(), mkcol.methodCode());
+        assertEquals(propfind.methodCode(), new ShadowFinding("b.example", "/x", "PROPFIND", 1, 0, 0, 0).methodCode());
+        assertEquals("PROPFIND", propfind.withTested(true).withSource(2, true).method());
+
+        assertEquals("GET", new ShadowFinding("a.example", "/api/a", "get", 1, 0, 0, 0).method());
+        assertEquals(RequestMethod.CONNECT, new ShadowFinding("a.example", "/api/a", "CONNECT", 1, 0, 0, 0).requestMethod());
+        assertNull(new ShadowFinding("a.example", "/api/a", null, 1, 0, 0, 0).method());
+
+        // Replacing one custom verb with another moves the method count
+        FindingSnapshot snapshot = FindingSnapshot.EMPTY.with(propfind, FIRST);
+        assertEquals(Map.of("PROPFIND", 1), snapshot.global.byMethod());
+        snapshot = snapshot.with(mkcol, null);
+        assertEquals(Map.of("MKCOL", 1), snapshot.global.byMethod());
+        assertEquals(Map.of("MKCOL", 1), snapshot.host("a.example").byMethod());
+    }
+
+    private static Set<Integer> sourceIds(FindingSnapshot snapshot) {
+        Set<Integer> ids = new HashSet<>();
+        for (int id : snapshot.sourceIds()) ids.add(id);
+        return ids;
+    }
+
+    private static ShadowFinding finding(String host, String path, int sourceId) {
+        return new ShadowFinding(host, path, "GET", sourceId, 0, 0, ShadowFinding.HAS_RESPONSE);
+    }
+}
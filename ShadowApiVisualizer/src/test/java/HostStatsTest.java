@@ -0,0 +1,170 @@
+import burp.api.montoya.http.message.HttpRequestResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Counters carried by each snapshot: per host and global, by status and by method,
+// after adds, status changes, removals and whole-host removals.
+class HostStatsTest {
+
+    private static final HttpRequestResponse SOURCE = FakeMontoya.requestResponse(null, null);
+
+    @Test
+    void plusAndMinusCountByStatusAndMethod() {
+        ShadowFinding get = finding("h", "/api/a", "GET", 0);
+        ShadowFinding post = finding("h", "/api/b", "POST", ShadowFinding.TESTED);
+        ShadowFinding unknown = finding("h", "/api/c", null, ShadowFinding.LIVE);
+        HostStats stats = HostStats.EMPTY.plus(get).plus(post).plus(unknown);
+
+        assertCounts(stats, 1, 1, 1);
+        assertEquals(Map.of("?", 1, "GET", 1, "POST", 1), stats.byMethod());
+        HostStats less = stats.minus(post);
+        assertCounts(less, 1, 0, 1);
+        assertEquals(Map.of("?", 1, "GET", 1), less.byMethod()); // Zero counts are left out
+        assertCounts(stats, 1, 1, 1); // Unchanged
+    }
+
+    @Test
+    void replacedMovesCountsOnlyWhenStatusOrMethodChange() {
+        ShadowFinding finding = finding("h", "/api/a", "GET", 0);
+        HostStats stats = HostStats.EMPTY.plus(finding);
+
+        assertSame(stats, stats.replaced(finding, finding.withSource(7, true)));
+        HostStats tested = stats.replaced(finding, finding.withTested(true));
+        assertCounts(tested, 0, 1, 0);
+        HostStats verified = tested.replaced(finding.withTested(true), finding.withTested(true).withLive(true));
+        assertCounts(verified, 0, 0, 1);
+        assertEquals(Map.of("GET", 1), verified.byMethod());
+    }
+
+    @Test
+    void snapshotKeepsHostAndGlobalCountsInStep() {
+        FindingSnapshot snapshot = FindingSnapshot.EMPTY
+                .with(finding("a.example", "/api/one", "GET", 0), SOURCE)
+                .with(finding("a.example", "/api/two", "POST", 0), SOURCE)
+                .with(finding("b.example", "/api/one", "GET", ShadowFinding.TESTED), SOURCE);
+        assertCounts(snapshot.host("a.example"), 2, 0, 0);
+        assertCounts(snapshot.host("b.example"), 0, 1, 0);
+        assertCounts(snapshot.global, 2, 1, 0);
+        assertEquals(3, snapshot.size());
+        assertEquals(2, snapshot.hostCount());
+
+        // A status change moves one count in the host and in the global counters
+        ShadowFinding one = snapshot.get("a.example", "/api/one");
+        snapshot = snapshot.with(one.withLive(true), null);
+        assertCounts(snapshot.host("a.example"), 1, 0, 1);
+        assertCounts(snapshot.global, 1, 1, 1);
+
+        // Anything else keeps the very same counters, which the summary bar relies on
+        HostStats global = snapshot.global;
+        HostStats host = snapshot.host("a.example");
+        ShadowFinding two = snapshot.get("a.example", "/api/two");
+        FindingSnapshot moved = snapshot.with(two.withSource(two.sourceId() + 1, true), SOURCE);
+        assertNotSame(snapshot, moved);
+        assertSame(global, moved.global);
+        assertSame(host, moved.host("a.example"));
+
+        snapshot = moved.without("a.example", "/api/two");
+        assertCounts(snapshot.host("a.example"), 0, 0, 1);
+        assertCounts(snapshot.global, 0, 1, 1);
+        assertEquals(Map.of("GET", 2), snapshot.global.byMethod());
+
+        snapshot = snapshot.without("a.example", "/api/one");
+        assertEquals(1, snapshot.hostCount()); // Empty hosts are dropped
+        assertSame(HostStats.EMPTY, snapshot.host("a.example"));
+        assertCounts(snapshot.global, 0, 1, 0);
+    }
+
+    @Test
+    void hostRemovalSubtractsTheWholeTable() {
+        FindingSnapshot snapshot = FindingSnapshot.EMPTY;
+        for (int i = 0; i < 20; i++) {
+            int flags = i % 3 == 0 ? ShadowFinding.TESTED : i % 3 == 1 ? ShadowFinding.LIVE : 0;
+            snapshot = snapshot.with(finding(i % 2 == 0 ? "a.example" : "b.example", "/api/item" + i,
+                    i % 4 == 0 ? "DELETE" : "GET", flags), SOURCE);
+        }
+        FindingSnapshot remaining = snapshot.withoutHost("a.example");
+        assertEquals(1, remaining.hostCount());
+        assertEquals(10, remaining.size());
+        assertCounts(remaining.global, snapshot.host("b.example"));
+        assertEquals(snapshot.host("b.example").byMethod(), remaining.global.byMethod());
+        assertSame(remaining, remaining.withoutHost("a.example"));
+    }
+
+    @Test
+    void countersMatchARecountAfterRandomChanges() {
+        Random random = new Random(30);
+        String[] hosts = {"a.example", "b.example", "c.example"};
+        String[] methods = {"GET", "POST", null};
+        FindingSnapshot snapshot = FindingSnapshot.EMPTY;
+        for (int op = 0; op < 3000; op++) {
+            String host = hosts[random.nextInt(hosts.length)];
+            String path = "/api/r" + random.nextInt(40);
+            ShadowFinding existing = snapshot.get(host, path);
+            switch (random.nextInt(5)) {
+                case 0:
+                    snapshot = snapshot.without(host, path);
+                    break;
+                case 1:
+                    if (random.nextInt(20) == 0) snapshot = snapshot.withoutHost(host);
+                    break;
+                case 2:
+                    if (existing != null) snapshot = snapshot.with(existing.withTested(!existing.isTested()), null);
+                    break;
+                case 3:
+                    if (existing != null) snapshot = snapshot.with(existing.withLive(!existing.isLive()), null);
+                    break;
+                default:
+                    if (existing == null) snapshot = snapshot.with(finding(host, path, methods[random.nextInt(3)], 0), SOURCE);
+            }
+            if (op % 100 == 0) assertMatchesRecount(snapshot);
+        }
+        assertMatchesRecount(snapshot);
+    }
+
+    private static void assertMatchesRecount(FindingSnapshot snapshot) {
+        Map<FindingStatus, Integer> global = new EnumMap<>(FindingStatus.class);
+        Map<String, Integer> globalMethods = new TreeMap<>();
+        for (String host : snapshot.hostNames()) {
+            Map<FindingStatus, Integer> counts = new EnumMap<>(FindingStatus.class);
+            Map<String, Integer> methods = new TreeMap<>();
+            for (ShadowFinding finding : snapshot.findings(host)) {
+                counts.merge(finding.status(), 1, Integer::sum);
+                methods.merge(finding.method() != null ? finding.method() : "?", 1, Integer::sum);
+            }
+            for (FindingStatus status : FindingStatus.values()) {
+                assertEquals(counts.getOrDefault(status, 0), snapshot.host(host).count(status), host + " " + status);
+            }
+            assertEquals(methods, snapshot.host(host).byMethod(), host);
+            counts.forEach((status, count) -> global.merge(status, count, Integer::sum));
+            methods.forEach((method, count) -> globalMethods.merge(method, count, Integer::sum));
+        }
+        for (FindingStatus status : FindingStatus.values()) {
+            assertEquals(global.getOrDefault(status, 0), snapshot.global.count(status), "global " + status);
+        }
+        assertEquals(globalMethods, snapshot.global.byMethod());
+    }
+
+    private static void assertCounts(HostStats stats, int untested, int tested, int verified) {
+        assertEquals(untested, stats.count(FindingStatus.UNTESTED), "untested");
+        assertEquals(tested, stats.count(FindingStatus.TESTED), "tested");
+        assertEquals(verified, stats.count(FindingStatus.VERIFIED), "verified");
+        assertEquals(untested + tested + verified, stats.total());
+    }
+
+    private static void assertCounts(HostStats actual, HostStats expected) {
+        assertCounts(actual, expected.count(FindingStatus.UNTESTED), expected.count(FindingStatus.TESTED),
+                expected.count(FindingStatus.VERIFIED));
+    }
+
+    private static ShadowFinding finding(String host, String path, String method, int flags) {
+        return new ShadowFinding(host, path, method, 0, 0, 0, flags | ShadowFinding.HAS_RESPONSE);
+    }
+}
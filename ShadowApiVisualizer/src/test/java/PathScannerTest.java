@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A parallel scan must return exactly what a single-threaded find() loop returns:
+// same paths, same offsets, same groups, same order.
+class PathScannerTest {
+
+    static final Pattern PATTERN = PatternSet.compile(List.of(
+            "['\"]?(\\/api\\/[a-zA-Z0-9_\\-\\/{}:]+)['\"]?",
+            "['\"]?(\\/v[0-9]+\\/[a-zA-Z0-9_\\-\\/{}:]+)['\"]?",
+            "['\"]?(\\/admin\\/[a-zA-Z0-9_\\-\\/{}:]+)['\"]?",
+            "\\/internal\\/[a-z]+")).pattern;
+
+    private static PathScanner scanner;
+
+    @BeforeAll
+    static void start() {
+        scanner = new PathScanner(4);
+    }
+
+    @AfterAll
+    static void stop() {
+        scanner.shutdown();
+    }
+
+    @Test
+    void parallelMatchesSerialOnLargeBundle() {
+        String body = bundle(6 * 1024 * 1024, 42);
+        List<String> serial = describe(scanner.scanSerial(PATTERN, body, 0, body.length()));
+        List<String> parallel = describe(scanner.scanParallel(PATTERN, body, 0, body.length()));
+
+        assertTrue(serial.size() > 1000, "corpus should produce plenty of matches, got " + serial.size());
+        assertEquals(serial, parallel);
+    }
+
+    @Test
+    void parallelMatchesSerialOnSubRegion() {
+        String body = bundle(2 * 1024 * 1024, 7);
+        int from = 12345;
+        int to = body.length() - 54321;
+        assertEquals(describe(scanner.scanSerial(PATTERN, body, from, to)),
+                describe(scanner.scanParallel(PATTERN, body, from, to)));
+    }
+
+    @Test
+    void matchesStraddlingRawCutsAreKeptWhole() {
+        // No ';' or newline anywhere, so every segment is cut at its nominal offset, and
+        // some paths are longer than the overlap window each segment may read past its end
+        StringBuilder sb = new StringBuilder();
+        Random random = new Random(3);
+        while (sb.length() < 1024 * 1024) {
+            int cut = (sb.length() / PathScanner.MIN_SEGMENT + 1) * PathScanner.MIN_SEGMENT;
+            while (sb.length() < cut - 10 - random.nextInt(2000)) sb.append("x ");
+            sb.append("\"/api/");
+            int length = random.nextBoolean() ? 20 : PathScanner.OVERLAP + 500;
+            for (int i = 0; i < length; i++) sb.append((char) ('a' + random.nextInt(26)));
+            sb.append("\" ");
+        }
+        String body = sb.toString();
+
+        List<String> serial = describe(scanner.scanSerial(PATTERN, body, 0, body.length()));
+        assertTrue(serial.size() > 10);
+        assertEquals(serial, describe(scanner.scanParallel(PATTERN, body, 0, body.length())));
+    }
+
+    @Test
+    void boundaryIsTheNextStatementEnd() {
+        String body = "aaaa;bbbb\ncccc";
+        assertEquals(5, PathScanner.alignToBoundary(body, 1, body.length()));
+        assertEquals(10, PathScanner.alignToBoundary(body, 6, body.length()));
+        assertEquals(11, PathScanner.alignToBoundary(body, 11, body.length()));
+    }
+
+    /** Minified-bundle-like text: statements of filler with quoted paths, some repeated. */
+    static String bundle(int size, long seed) {
+        Random random = new Random(seed);
+        String[] prefixes = {"/api/", "/v1/", "/v2/", "/admin/", "/internal/"};
+        List<String> seen = new ArrayList<>();
+        StringBuilder sb = new StringBuilder(size + 256);
+        while (sb.length() < size) {
+            int filler = random.nextInt(400);
+            for (int i = 0; i < filler; i++) sb.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(4) == 0 && !seen.isEmpty()) {
+                sb.append("fetch(\"").append(seen.get(random.nextInt(seen.size()))).append("\")");
+            } else {
+                StringBuilder path = new StringBuilder(prefixes[random.nextInt(prefixes.length)]);
+                int segments = 1 + random.nextInt(4);
+                for (int s = 0; s < segments; s++) {
+                    if (s > 0) path.append('/');
+                    path.append(random.nextInt(3) == 0 ? String.valueOf(random.nextInt(10000)) : "res" + random.nextInt(500));
+                }
+                seen.add(path.toString());
+                sb.append(random.nextBoolean() ? "'" : "\"").append(path).append("'");
+            }
+            sb.append(random.nextInt(8) == 0 ? '\n' : ';');
+        }
+        return sb.toString();
+    }
+
+    static List<String> describe(List<PathMatch> matches) {
+        List<String> described = new ArrayList<>(matches.size());
+        for (PathMatch match : matches) {
+            described.add(match.path + "@" + match.start + "-" + match.end + "#" + match.group);
+        }
+        return described;
+    }
+}
@@ -0,0 +1,113 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Capture groups of the combined alternation must lead back to the list entry that
+// produced them, whatever order the alternatives are tried in.
+class PatternSetTest {
+
+    private static final List<String> RULES = List.of(
+            "['\"](\\/api\\/[a-z]+)['\"]",   // One group
+            "\\/internal\\/[a-z]+",           // No group: wrapped in one
+            "(\\/v[0-9]+)\\/([a-z]+)",        // Two groups
+            "\\/admin\\/(?:x|y)[a-z]*");      // Only a non-capturing group
+
+    private static final String BODY = "fetch('/api/users'); x = \"/internal/jobs\"; get(\"/v2/items\");"
+            + " nav('/admin/xpanel'); fetch(\"/api/orders\"); /internal/health /v10/status";
+
+    @Test
+    void groupsMapToTheirRules() {
+        PatternSet set = PatternSet.compile(RULES);
+        assertEquals(-1, set.ruleOf(0));
+        assertEquals(0, set.ruleOf(1));
+        assertEquals(1, set.ruleOf(2));
+        assertEquals(2, set.ruleOf(3));
+        assertEquals(2, set.ruleOf(4));
+        assertEquals(3, set.ruleOf(5));
+        assertEquals(-1, set.ruleOf(6));
+        assertNull(set.rule(0));
+        assertEquals(RULES.get(1), set.rule(2));
+        assertEquals(RULES.size(), set.singles.length);
+    }
+
+    @Test
+    void wrappedRulesReportTheWholeMatch() {
+        assertEquals(List.of("/api/users 0", "/internal/jobs 1", "/v2 2", "/admin/xpanel 3", "/api/orders 0",
+                        "/internal/health 1", "/v10 2"),
+                attribute(PatternSet.compile(RULES)));
+    }
+
+    @Test
+    void attributionIsTheSameInAnyOrder() {
+        List<String> listOrder = attribute(PatternSet.compile(RULES));
+        int[][] orders = {{3, 2, 1, 0}, {2, 0, 3, 1}, {1, 3, 0, 2}};
+        for (int[] order : orders) {
+            PatternSet reordered = PatternSet.compile(RULES, order);
+            assertArrayEquals(RULES.toArray(new String[0]), reordered.rules);
+            for (int i = 0; i < RULES.size(); i++) {
+                assertEquals(RULES.get(i), reordered.singles[i].pattern());
+            }
+            assertEquals(listOrder, attribute(reordered));
+        }
+    }
+
+    @Test
+    void hotFirstOrdersByMatchesAndKeepsTies() {
+        PatternProfiler profiler = new PatternProfiler();
+        try {
+            PatternSet set = PatternSet.compile(RULES);
+            List<PathMatch> matches = new ArrayList<>();
+            matches.add(new PathMatch("/v1", 0, 3, 3, null));
+            matches.add(new PathMatch("/v2", 0, 3, 4, null));
+            matches.add(new PathMatch("/admin/x", 0, 8, 5, null));
+            profiler.recordMatches(set, matches);
+
+            int[] order = profiler.hotFirst(RULES);
+            assertArrayEquals(new int[]{2, 3, 0, 1}, order);
+            PatternSet hot = PatternSet.compile(RULES, order);
+            assertEquals(attribute(set), attribute(hot));
+        } finally {
+            profiler.shutdown();
+        }
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PatternSet.compile(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> PatternSet.compile(List.of("(unclosed")));
+        assertThrows(IllegalArgumentException.class, () -> PatternSet.compile(RULES, new int[]{0, 1}));
+    }
+
+    @Test
+    void resolveKeyPrefersCurrentRulesThenKnownStats() {
+        PatternProfiler profiler = new PatternProfiler();
+        try {
+            String retired = "\\/old\\/[a-z]+";
+            profiler.recordFinding(retired);
+            assertEquals(RULES.get(2), profiler.resolveKey(PatternProfiler.ruleKey(RULES.get(2)), RULES));
+            assertEquals(retired, profiler.resolveKey(PatternProfiler.ruleKey(retired), RULES));
+            assertNull(profiler.resolveKey(PatternProfiler.ruleKey("\\/never\\/seen"), RULES));
+            assertNull(profiler.resolveKey(null, RULES));
+        } finally {
+            profiler.shutdown();
+        }
+    }
+
+    // Each match as "path ruleIndex", as the scanner and profiler see it
+    private static List<String> attribute(PatternSet set) {
+        List<String> found = new ArrayList<>();
+        Matcher matcher = set.pattern.matcher(BODY);
+        while (matcher.find()) {
+            int group = PathMatch.foundGroup(matcher);
+            found.add(matcher.group(group) + " " + set.ruleOf(group));
+        }
+        return found;
+    }
+}
@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The trie is checked against HashMap under random puts and removes, with keys whose
+// hashes spread normally and with keys that all land in a handful of collision buckets.
+class PersistentMapTest {
+
+    @Test
+    void behavesLikeHashMap() {
+        checkAgainstHashMap(Integer::valueOf, 5000, 40_000, 1);
+    }
+
+    @Test
+    void behavesLikeHashMapWithCollidingKeys() {
+        // Four distinct hashes for every key: deep collision nodes on every path
+        checkAgainstHashMap(id -> new Colliding(id, id % 4), 600, 10_000, 2);
+    }
+
+    @Test
+    void behavesLikeHashMapWithPartialHashCollisions() {
+        // Hashes that share their low bits, so nodes branch only a few levels down
+        checkAgainstHashMap(id -> new Colliding(id, (id % 64) << 20), 2000, 20_000, 3);
+    }
+
+    @Test
+    void oldVersionsNeverChange() {
+        Random random = new Random(4);
+        PersistentMap<Colliding, Integer> map = PersistentMap.empty();
+        Map<Colliding, Integer> expected = new HashMap<>();
+        List<PersistentMap<Colliding, Integer>> versions = new ArrayList<>();
+        List<Map<Colliding, Integer>> copies = new ArrayList<>();
+
+        for (int op = 0; op < 20_000; op++) {
+            int id = random.nextInt(1000);
+            Colliding key = new Colliding(id, id % 16);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, op);
+                expected.put(key, op);
+            }
+            if (op % 500 == 0) {
+                versions.add(map);
+                copies.add(new HashMap<>(expected));
+            }
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertContents(copies.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    void unchangedMapsAreReturnedAsIs() {
+        Integer value = 1;
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().put("a", value);
+        assertSame(map, map.put("a", value));
+        assertSame(map, map.remove("missing"));
+        assertTrue(map.remove("a").isEmpty());
+        assertNull(PersistentMap.<String, Integer>empty().get("a"));
+    }
+
+    private static <K> void checkAgainstHashMap(IntFunction<K> keys, int keySpace, int operations, long seed) {
+        Random random = new Random(seed);
+        PersistentMap<K, Integer> map = PersistentMap.empty();
+        Map<K, Integer> expected = new HashMap<>();
+        for (int op = 0; op < operations; op++) {
+            K key = keys.apply(random.nextInt(keySpace));
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, op);
+                expected.put(key, op);
+            }
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.size(), map.size());
+            if (op % 1000 == 0) assertContents(expected, map);
+        }
+        assertContents(expected, map);
+
+        // Drain completely: every remove must find its key
+        for (K key : new ArrayList<>(expected.keySet())) {
+            map = map.remove(key);
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    private static <K> void assertContents(Map<K, Integer> expected, PersistentMap<K, Integer> map) {
+        assertEquals(expected.size(), map.size());
+        Map<K, Integer> iterated = new HashMap<>();
+        for (Map.Entry<K, Integer> entry : map) {
+            assertNull(iterated.put(entry.getKey(), entry.getValue()), "iterated twice: " + entry.getKey());
+        }
+        assertEquals(expected, iterated);
+        for (Map.Entry<K, Integer> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    /** Key with a chosen hash code, equal only to keys with the same id. */
+    private static final class Colliding {
+        final int id;
+        final int hash;
+
+        Colliding(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Colliding && ((Colliding) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "key" + id + "/" + Integer.toHexString(hash);
+        }
+    }
+}